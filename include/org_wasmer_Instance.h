@@ -10,10 +10,10 @@ extern "C" {
 /*
  * Class:     org_wasmer_Instance
  * Method:    nativeInstantiate
- * Signature: (Lorg/wasmer/Instance;[B)J
+ * Signature: (Lorg/wasmer/Instance;[BLorg/wasmer/Imports;Lorg/wasmer/CompilerConfig;)J
  */
 JNIEXPORT jlong JNICALL Java_org_wasmer_Instance_nativeInstantiate
-  (JNIEnv *, jobject, jobject, jbyteArray);
+  (JNIEnv *, jobject, jobject, jbyteArray, jobject, jobject);
 
 /*
  * Class:     org_wasmer_Instance
@@ -23,6 +23,14 @@ JNIEXPORT jlong JNICALL Java_org_wasmer_Instance_nativeInstantiate
 JNIEXPORT void JNICALL Java_org_wasmer_Instance_nativeDrop
   (JNIEnv *, jobject, jlong);
 
+/*
+ * Class:     org_wasmer_Instance
+ * Method:    nativeDescribe
+ * Signature: (J)Lorg/wasmer/types/ModuleDescriptor;
+ */
+JNIEXPORT jobject JNICALL Java_org_wasmer_Instance_nativeDescribe
+  (JNIEnv *, jobject, jlong);
+
 /*
  * Class:     org_wasmer_Instance
  * Method:    nativeCallExportedFunction
@@ -47,6 +55,30 @@ JNIEXPORT void JNICALL Java_org_wasmer_Instance_nativeInitializeExportedFunction
 JNIEXPORT void JNICALL Java_org_wasmer_Instance_nativeInitializeExportedMemories
   (JNIEnv *, jclass, jlong);
 
+/*
+ * Class:     org_wasmer_Instance
+ * Method:    nativeProfile
+ * Signature: (JLorg/wasmer/Profile;)V
+ */
+JNIEXPORT void JNICALL Java_org_wasmer_Instance_nativeProfile
+  (JNIEnv *, jobject, jlong, jobject);
+
+/*
+ * Class:     org_wasmer_Instance
+ * Method:    nativeResetProfile
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_org_wasmer_Instance_nativeResetProfile
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     org_wasmer_Instance
+ * Method:    nativeMemorySize
+ * Signature: (J)J
+ */
+JNIEXPORT jlong JNICALL Java_org_wasmer_Instance_nativeMemorySize
+  (JNIEnv *, jobject, jlong);
+
 #ifdef __cplusplus
 }
 #endif
@@ -23,6 +23,102 @@ JNIEXPORT void JNICALL Java_org_wasmer_Memory_nativeMemoryView
 JNIEXPORT jint JNICALL Java_org_wasmer_Memory_nativeMemoryGrow
   (JNIEnv *, jobject, jobject, jlong, jint);
 
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeDrop
+ * Signature: (J)V
+ */
+JNIEXPORT void JNICALL Java_org_wasmer_Memory_nativeDrop
+  (JNIEnv *, jobject, jlong);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeCopy
+ * Signature: (JJIII)V
+ */
+JNIEXPORT void JNICALL Java_org_wasmer_Memory_nativeCopy
+  (JNIEnv *, jclass, jlong, jlong, jint, jint, jint);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeCopyRanges
+ * Signature: (JJ[I[I[I)V
+ */
+JNIEXPORT void JNICALL Java_org_wasmer_Memory_nativeCopyRanges
+  (JNIEnv *, jclass, jlong, jlong, jintArray, jintArray, jintArray);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeSharedMemory
+ * Signature: (II)J
+ */
+JNIEXPORT jlong JNICALL Java_org_wasmer_Memory_nativeSharedMemory
+  (JNIEnv *, jclass, jint, jint);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeAtomicGetInt
+ * Signature: (JI)I
+ */
+JNIEXPORT jint JNICALL Java_org_wasmer_Memory_nativeAtomicGetInt
+  (JNIEnv *, jclass, jlong, jint);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeAtomicSetInt
+ * Signature: (JII)V
+ */
+JNIEXPORT void JNICALL Java_org_wasmer_Memory_nativeAtomicSetInt
+  (JNIEnv *, jclass, jlong, jint, jint);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeAtomicGetAndAddInt
+ * Signature: (JII)I
+ */
+JNIEXPORT jint JNICALL Java_org_wasmer_Memory_nativeAtomicGetAndAddInt
+  (JNIEnv *, jclass, jlong, jint, jint);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeAtomicCompareAndSetInt
+ * Signature: (JIII)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_wasmer_Memory_nativeAtomicCompareAndSetInt
+  (JNIEnv *, jclass, jlong, jint, jint, jint);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeAtomicGetLong
+ * Signature: (JI)J
+ */
+JNIEXPORT jlong JNICALL Java_org_wasmer_Memory_nativeAtomicGetLong
+  (JNIEnv *, jclass, jlong, jint);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeAtomicSetLong
+ * Signature: (JIJ)V
+ */
+JNIEXPORT void JNICALL Java_org_wasmer_Memory_nativeAtomicSetLong
+  (JNIEnv *, jclass, jlong, jint, jlong);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeAtomicGetAndAddLong
+ * Signature: (JIJ)J
+ */
+JNIEXPORT jlong JNICALL Java_org_wasmer_Memory_nativeAtomicGetAndAddLong
+  (JNIEnv *, jclass, jlong, jint, jlong);
+
+/*
+ * Class:     org_wasmer_Memory
+ * Method:    nativeAtomicCompareAndSetLong
+ * Signature: (JIJJ)Z
+ */
+JNIEXPORT jboolean JNICALL Java_org_wasmer_Memory_nativeAtomicCompareAndSetLong
+  (JNIEnv *, jclass, jlong, jint, jlong, jlong);
+
 #ifdef __cplusplus
 }
 #endif
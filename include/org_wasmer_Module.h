@@ -7,13 +7,25 @@
 #ifdef __cplusplus
 extern "C" {
 #endif
+#undef org_wasmer_Module_STREAMING_BUFFER_CAPACITY
+#define org_wasmer_Module_STREAMING_BUFFER_CAPACITY 65536L
+#undef org_wasmer_Module_STREAMING_BUFFER_MAXIMUM_CAPACITY
+#define org_wasmer_Module_STREAMING_BUFFER_MAXIMUM_CAPACITY 2147483647L
 /*
  * Class:     org_wasmer_Module
  * Method:    nativeModuleInstantiate
- * Signature: (Lorg/wasmer/Module;[B)J
+ * Signature: (Lorg/wasmer/Module;[BLorg/wasmer/CompilerConfig;)J
  */
 JNIEXPORT jlong JNICALL Java_org_wasmer_Module_nativeModuleInstantiate
-  (JNIEnv *, jobject, jobject, jbyteArray);
+  (JNIEnv *, jobject, jobject, jbyteArray, jobject);
+
+/*
+ * Class:     org_wasmer_Module
+ * Method:    nativeModuleInstantiateBuffer
+ * Signature: (Lorg/wasmer/Module;Ljava/nio/ByteBuffer;ILorg/wasmer/CompilerConfig;)J
+ */
+JNIEXPORT jlong JNICALL Java_org_wasmer_Module_nativeModuleInstantiateBuffer
+  (JNIEnv *, jobject, jobject, jobject, jint, jobject);
 
 /*
  * Class:     org_wasmer_Module
@@ -26,18 +38,26 @@ JNIEXPORT void JNICALL Java_org_wasmer_Module_nativeDrop
 /*
  * Class:     org_wasmer_Module
  * Method:    nativeInstantiate
- * Signature: (JLorg/wasmer/Instance;)J
+ * Signature: (JLorg/wasmer/Instance;Lorg/wasmer/Imports;Lorg/wasmer/ResourceLimits;)J
  */
 JNIEXPORT jlong JNICALL Java_org_wasmer_Module_nativeInstantiate
-  (JNIEnv *, jobject, jlong, jobject);
+  (JNIEnv *, jobject, jlong, jobject, jobject, jobject);
+
+/*
+ * Class:     org_wasmer_Module
+ * Method:    nativeDescribe
+ * Signature: (J)Lorg/wasmer/types/ModuleDescriptor;
+ */
+JNIEXPORT jobject JNICALL Java_org_wasmer_Module_nativeDescribe
+  (JNIEnv *, jobject, jlong);
 
 /*
  * Class:     org_wasmer_Module
  * Method:    nativeValidate
- * Signature: ([B)Z
+ * Signature: ([BLorg/wasmer/Features;)Z
  */
 JNIEXPORT jboolean JNICALL Java_org_wasmer_Module_nativeValidate
-  (JNIEnv *, jclass, jbyteArray);
+  (JNIEnv *, jclass, jbyteArray, jobject);
 
 /*
  * Class:     org_wasmer_Module
@@ -55,6 +75,14 @@ JNIEXPORT jbyteArray JNICALL Java_org_wasmer_Module_nativeSerialize
 JNIEXPORT jlong JNICALL Java_org_wasmer_Module_nativeDeserialize
   (JNIEnv *, jclass, jobject, jbyteArray);
 
+/*
+ * Class:     org_wasmer_Module
+ * Method:    nativeDeserializeBuffer
+ * Signature: (Lorg/wasmer/Module;Ljava/nio/ByteBuffer;I)J
+ */
+JNIEXPORT jlong JNICALL Java_org_wasmer_Module_nativeDeserializeBuffer
+  (JNIEnv *, jclass, jobject, jobject, jint);
+
 #ifdef __cplusplus
 }
 #endif
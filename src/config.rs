@@ -0,0 +1,158 @@
+use crate::{
+    exception::{runtime_error, Error},
+    limits::LimitingTunables,
+    profiler::Profiling,
+};
+use jni::{objects::JObject, JNIEnv};
+use std::sync::Arc;
+use wasmer::{
+    wasmparser::{Parser, Payload},
+    CompilerConfig, Cranelift, Features as EngineFeatures, Module, Store, JIT,
+};
+
+/// The prefix of the instructions of the threads proposal.
+const ATOMIC_PREFIX: u8 = 0xfe;
+
+/// The WebAssembly proposals enabled when compiling or validating a
+/// module, read from an `org.wasmer.Features` object.
+#[derive(Clone, Copy, Default)]
+pub struct Features {
+    pub simd: bool,
+    pub threads: bool,
+    pub bulk_memory: bool,
+    pub multi_value: bool,
+}
+
+impl Features {
+    /// Read the features from an `org.wasmer.Features` object. A null
+    /// object represents the default features.
+    pub fn from_java(env: &JNIEnv, features_object: JObject) -> Result<Self, Error> {
+        if features_object.is_null() {
+            return Ok(Self::default());
+        }
+
+        let enabled = |field: &str| -> Result<bool, Error> {
+            env.get_field(features_object, field, "Z")?.z()
+        };
+
+        Ok(Self {
+            simd: enabled("simd")?,
+            threads: enabled("threads")?,
+            bulk_memory: enabled("bulkMemory")?,
+            multi_value: enabled("multiValue")?,
+        })
+    }
+
+    /// The features of the engine compiling a module.
+    fn engine_features(&self) -> EngineFeatures {
+        let mut features = EngineFeatures::new();
+        features
+            .simd(self.simd)
+            .threads(self.threads)
+            .bulk_memory(self.bulk_memory)
+            .multi_value(self.multi_value)
+            // Reference types cannot be represented in Java, and
+            // they depend on bulk memory anyway.
+            .reference_types(false);
+
+        features
+    }
+
+    /// Check that given bytes represent a valid WebAssembly module
+    /// with these features. The validation is done by the engine
+    /// compiling the modules, so that it matches the compilation.
+    pub fn validate(&self, module_bytes: &[u8]) -> bool {
+        let config = Config {
+            features: *self,
+            ..Default::default()
+        };
+
+        Module::validate(&config.store(), module_bytes).is_ok()
+            && !(self.threads && uses_atomics(module_bytes))
+    }
+}
+
+/// Check whether a module uses an atomic instruction. Cranelift, the
+/// compiler of this crate, does not support them, even with the
+/// threads proposal: only its shared memories are supported.
+fn uses_atomics(module_bytes: &[u8]) -> bool {
+    for payload in Parser::new(0).parse_all(module_bytes) {
+        let body = match payload {
+            Ok(Payload::CodeSectionEntry(body)) => body,
+            Ok(_) => continue,
+            // Invalid modules are reported by the engine.
+            Err(_) => return false,
+        };
+
+        let operators = match body.get_operators_reader() {
+            Ok(operators) => operators,
+            Err(_) => return false,
+        };
+
+        for operator in operators.into_iter_with_offsets() {
+            match operator {
+                Ok((_, offset)) if module_bytes[offset] == ATOMIC_PREFIX => return true,
+                Ok(_) => continue,
+                Err(_) => return false,
+            }
+        }
+    }
+
+    false
+}
+
+/// The configuration of the compiler, read from an
+/// `org.wasmer.CompilerConfig` object.
+#[derive(Default)]
+pub struct Config {
+    pub profiling: bool,
+    pub features: Features,
+}
+
+impl Config {
+    /// Read the configuration from an `org.wasmer.CompilerConfig`
+    /// object. A null object represents the default configuration.
+    pub fn from_java(env: &JNIEnv, config_object: JObject) -> Result<Self, Error> {
+        if config_object.is_null() {
+            return Ok(Self::default());
+        }
+
+        let features_object = env
+            .get_field(config_object, "features", "Lorg/wasmer/Features;")?
+            .l()?;
+
+        Ok(Self {
+            profiling: env.get_field(config_object, "profiling", "Z")?.z()?,
+            features: Features::from_java(env, features_object)?,
+        })
+    }
+
+    /// Create a store whose engine compiles modules with this
+    /// configuration. A module keeps its store alive. The tunables of
+    /// the store apply the resource limits when instantiating.
+    pub fn store(&self) -> Store {
+        let mut compiler_config = Cranelift::default();
+
+        if self.profiling {
+            compiler_config.push_middleware(Arc::new(Profiling::default()));
+        }
+
+        let engine = JIT::new(compiler_config)
+            .features(self.features.engine_features())
+            .engine();
+
+        Store::new_with_tunables(&engine, LimitingTunables::new())
+    }
+
+    /// Compile WebAssembly bytes into a module.
+    pub fn compile(&self, module_bytes: &[u8]) -> Result<Module, Error> {
+        if self.features.threads && uses_atomics(module_bytes) {
+            return Err(runtime_error(
+                "Failed to compile the module: atomic instructions are not supported".to_string(),
+            ));
+        }
+
+        Module::from_binary(&self.store(), module_bytes)
+            .map_err(|e| runtime_error(format!("Failed to compile the module: {}", e)))
+    }
+}
@@ -0,0 +1,209 @@
+use crate::{
+    exception::{runtime_error, Error},
+    profiler,
+};
+use jni::{
+    objects::{JObject, JValue},
+    sys::jint,
+    JNIEnv,
+};
+use wasmer::{ExternType, FunctionType, GlobalType, MemoryType, Module, TableType, Type};
+
+pub const MODULE_DESCRIPTOR_CLASS: &str = "org/wasmer/types/ModuleDescriptor";
+
+/// The number of local references created to describe one import or
+/// one export, freed once it is described.
+const LOCAL_REFERENCES_PER_EXTERN: i32 = 8;
+
+/// The ordinal of a type in the `org.wasmer.types.ValueType` enum.
+fn value_type(ty: &Type) -> Result<jint, Error> {
+    match ty {
+        Type::I32 => Ok(0),
+        Type::I64 => Ok(1),
+        Type::F32 => Ok(2),
+        Type::F64 => Ok(3),
+        Type::V128 => Ok(4),
+        ty => Err(runtime_error(format!("Value type `{:?}` is not supported", ty))),
+    }
+}
+
+/// Fill an `org.wasmer.types.ModuleDescriptor` object with the imports
+/// and the exports of a module.
+struct Describer<'e, 'a> {
+    env: &'e JNIEnv<'a>,
+    descriptor_object: JObject<'a>,
+}
+
+impl<'e, 'a> Describer<'e, 'a> {
+    /// The namespace and the name of an import, or a null namespace
+    /// and the name of an export.
+    fn names(&self, namespace: Option<&str>, name: &str) -> Result<[JValue<'a>; 2], Error> {
+        let namespace = match namespace {
+            Some(namespace) => JObject::from(self.env.new_string(namespace)?),
+            None => JObject::null(),
+        };
+
+        Ok([namespace.into(), JObject::from(self.env.new_string(name)?).into()])
+    }
+
+    fn add_function(
+        &self,
+        namespace: Option<&str>,
+        name: &str,
+        function_type: &FunctionType,
+    ) -> Result<(), Error> {
+        let types = |types: &[Type]| -> Result<JObject<'a>, Error> {
+            let types = types.iter().map(value_type).collect::<Result<Vec<jint>, Error>>()?;
+            let array = self.env.new_int_array(types.len() as jint)?;
+            self.env.set_int_array_region(array, 0, &types)?;
+
+            Ok(JObject::from(array))
+        };
+
+        let [namespace, name] = self.names(namespace, name)?;
+
+        self.env.call_method(
+            self.descriptor_object,
+            "addFunction",
+            "(Ljava/lang/String;Ljava/lang/String;[I[I)V",
+            &[
+                namespace,
+                name,
+                types(function_type.params())?.into(),
+                types(function_type.results())?.into(),
+            ],
+        )?;
+
+        Ok(())
+    }
+
+    fn add_memory(
+        &self,
+        namespace: Option<&str>,
+        name: &str,
+        memory_type: &MemoryType,
+    ) -> Result<(), Error> {
+        let [namespace, name] = self.names(namespace, name)?;
+
+        self.env.call_method(
+            self.descriptor_object,
+            "addMemory",
+            "(Ljava/lang/String;Ljava/lang/String;IIZ)V",
+            &[
+                namespace,
+                name,
+                (memory_type.minimum.0 as jint).into(),
+                memory_type
+                    .maximum
+                    .map(|pages| pages.0 as jint)
+                    .unwrap_or(-1)
+                    .into(),
+                memory_type.shared.into(),
+            ],
+        )?;
+
+        Ok(())
+    }
+
+    fn add_table(
+        &self,
+        namespace: Option<&str>,
+        name: &str,
+        table_type: &TableType,
+    ) -> Result<(), Error> {
+        let [namespace, name] = self.names(namespace, name)?;
+
+        self.env.call_method(
+            self.descriptor_object,
+            "addTable",
+            "(Ljava/lang/String;Ljava/lang/String;II)V",
+            &[
+                namespace,
+                name,
+                (table_type.minimum as jint).into(),
+                table_type
+                    .maximum
+                    .map(|elements| elements as jint)
+                    .unwrap_or(-1)
+                    .into(),
+            ],
+        )?;
+
+        Ok(())
+    }
+
+    fn add_global(
+        &self,
+        namespace: Option<&str>,
+        name: &str,
+        global_type: &GlobalType,
+    ) -> Result<(), Error> {
+        let [namespace, name] = self.names(namespace, name)?;
+
+        self.env.call_method(
+            self.descriptor_object,
+            "addGlobal",
+            "(Ljava/lang/String;Ljava/lang/String;IZ)V",
+            &[
+                namespace,
+                name,
+                value_type(&global_type.ty)?.into(),
+                global_type.mutability.is_mutable().into(),
+            ],
+        )?;
+
+        Ok(())
+    }
+
+    /// Describe an import (with a namespace) or an export (without),
+    /// in its own local frame, so that a module with many imports or
+    /// exports does not exhaust the local references.
+    fn add(&self, namespace: Option<&str>, name: &str, ty: &ExternType) -> Result<(), Error> {
+        self.env.with_local_frame(LOCAL_REFERENCES_PER_EXTERN, || {
+            match ty {
+                ExternType::Function(function_type) => {
+                    self.add_function(namespace, name, function_type)?
+                }
+                ExternType::Memory(memory_type) => self.add_memory(namespace, name, memory_type)?,
+                ExternType::Table(table_type) => self.add_table(namespace, name, table_type)?,
+                ExternType::Global(global_type) => self.add_global(namespace, name, global_type)?,
+            }
+
+            Ok(JObject::null())
+        })?;
+
+        Ok(())
+    }
+
+    fn describe(&self, module: &Module) -> Result<(), Error> {
+        // The imports, in the order of the import section. The
+        // functions imported by the profiler are hidden.
+        for import in module.imports() {
+            if profiler::is_profiler_namespace(import.module()) {
+                continue;
+            }
+
+            self.add(Some(import.module()), import.name(), import.ty())?;
+        }
+
+        for export in module.exports() {
+            self.add(None, export.name(), export.ty())?;
+        }
+
+        Ok(())
+    }
+}
+
+/// Create an `org.wasmer.types.ModuleDescriptor` object describing the
+/// imports and the exports of a module.
+pub fn describe<'a>(env: &JNIEnv<'a>, module: &Module) -> Result<JObject<'a>, Error> {
+    let descriptor_object = env.new_object(MODULE_DESCRIPTOR_CLASS, "()V", &[])?;
+
+    Describer {
+        env,
+        descriptor_object,
+    }
+    .describe(module)?;
+
+    Ok(descriptor_object)
+}
@@ -1,11 +1,105 @@
 pub use jni::errors::Error;
-use jni::{errors::ErrorKind, JNIEnv};
+use jni::{
+    errors::ErrorKind,
+    objects::{JObject, JThrowable},
+    sys::jint,
+    JNIEnv,
+};
 use std::thread;
+use wasmer::RuntimeError;
+use wasmer_vm::TrapCode as WasmTrapCode;
+
+pub const TRAP_CLASS: &str = "org/wasmer/WasmTrap";
 
 pub fn runtime_error(message: String) -> Error {
     Error::from_kind(ErrorKind::Msg(message))
 }
 
+/// The reason of a trap, i.e. the ordinal of a code in the
+/// `org.wasmer.TrapCode` enum.
+#[derive(Clone, Copy, PartialEq)]
+pub enum TrapCode {
+    Unreachable = 0,
+    MemoryOutOfBounds = 1,
+    TableOutOfBounds = 2,
+    IndirectCallSignatureMismatch = 3,
+    IllegalArithmetic = 4,
+    MisalignedAtomicAccess = 5,
+    StackOverflow = 6,
+    // The execution is not metered by the current runtime.
+    #[allow(unused)]
+    FuelExhausted = 7,
+    Unknown = 8,
+}
+
+impl From<WasmTrapCode> for TrapCode {
+    fn from(code: WasmTrapCode) -> Self {
+        match code {
+            WasmTrapCode::UnreachableCodeReached => TrapCode::Unreachable,
+            WasmTrapCode::HeapAccessOutOfBounds
+            | WasmTrapCode::HeapSetterOutOfBounds
+            | WasmTrapCode::HeapMisaligned => TrapCode::MemoryOutOfBounds,
+            WasmTrapCode::TableAccessOutOfBounds
+            | WasmTrapCode::TableSetterOutOfBounds
+            | WasmTrapCode::OutOfBounds
+            | WasmTrapCode::IndirectCallToNull => TrapCode::TableOutOfBounds,
+            WasmTrapCode::BadSignature => TrapCode::IndirectCallSignatureMismatch,
+            WasmTrapCode::IntegerOverflow
+            | WasmTrapCode::IntegerDivisionByZero
+            | WasmTrapCode::BadConversionToInteger => TrapCode::IllegalArithmetic,
+            WasmTrapCode::UnalignedAtomic => TrapCode::MisalignedAtomicAccess,
+            WasmTrapCode::StackOverflow => TrapCode::StackOverflow,
+            #[allow(unreachable_patterns)]
+            _ => TrapCode::Unknown,
+        }
+    }
+}
+
+/// Turn an error returned by a call into an exception: an
+/// `org.wasmer.WasmTrap` if the guest has trapped, a runtime
+/// exception otherwise, e.g. if a host function has failed.
+pub fn call_error(env: &JNIEnv, error: RuntimeError) -> Error {
+    // Cloning a runtime error is cheap: it is reference-counted.
+    match error.clone().to_trap() {
+        Some(code) => match TrapCode::from(code) {
+            // The code alone does not describe the trap.
+            TrapCode::Unknown => throw_trap(env, TrapCode::Unknown, Some(&error.message())),
+            code => throw_trap(env, code, None),
+        },
+        None => runtime_error(error.message()),
+    }
+}
+
+/// Throw an `org.wasmer.WasmTrap` exception. Without a message, the
+/// trap is preallocated on the Java side, so nothing is formatted.
+///
+/// The returned error tells `joption_or_throw` that an exception is
+/// already pending.
+pub fn throw_trap(env: &JNIEnv, code: TrapCode, message: Option<&str>) -> Error {
+    let throw = || -> Result<(), Error> {
+        let message = match message {
+            Some(message) => JObject::from(env.new_string(message)?),
+            None => JObject::null(),
+        };
+
+        let trap = env
+            .call_static_method(
+                TRAP_CLASS,
+                "create",
+                "(ILjava/lang/String;)Lorg/wasmer/WasmTrap;",
+                &[(code as jint).into(), message.into()],
+            )?
+            .l()?;
+
+        env.throw(JThrowable::from(trap))
+    };
+
+    match throw() {
+        Ok(()) => Error::from_kind(ErrorKind::JavaException),
+        Err(error) => error,
+    }
+}
+
 #[derive(Debug)]
 pub enum JOption<T> {
     Some(T),
@@ -35,7 +129,15 @@ pub fn joption_or_throw<T>(env: &JNIEnv, result: thread::Result<Result<T, Error>
             }
         },
         Err(ref error) => {
-            env.throw_new("java/lang/RuntimeException", format!("{:?}", error))
+            // The payload of a panic is a string most of the time,
+            // which does not need to be formatted.
+            let message = error
+                .downcast_ref::<&str>()
+                .copied()
+                .or_else(|| error.downcast_ref::<String>().map(String::as_str))
+                .unwrap_or("A panic occurred in the WebAssembly runtime.");
+
+            env.throw_new("java/lang/RuntimeException", message)
                 .expect("Cannot throw an `java/lang/RuntimeException` exception.");
 
             JOption::None
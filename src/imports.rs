@@ -0,0 +1,95 @@
+use crate::{
+    exception::Error,
+    memory::Memory,
+    profiler,
+    types::{jptr, Pointer},
+    wasi,
+};
+use jni::{
+    objects::{JObject, JString},
+    sys::jobjectArray,
+    JNIEnv,
+};
+use std::collections::HashMap;
+use wasmer::{Exports, ImportObject, Module};
+
+/// Read the array returned by the `org.wasmer.Imports` method named `method`.
+fn array<'a>(
+    env: &JNIEnv<'a>,
+    imports_object: JObject,
+    method: &str,
+    signature: &str,
+) -> Result<Vec<JObject<'a>>, Error> {
+    let array: jobjectArray = env
+        .call_method(imports_object, method, signature, &[])?
+        .l()?
+        .into_inner();
+    let length = env.get_array_length(array)?;
+
+    (0..length)
+        .map(|nth| env.get_object_array_element(array, nth))
+        .collect()
+}
+
+/// Read the `String[]` returned by the `org.wasmer.Imports` method named `method`.
+fn strings(env: &JNIEnv, imports_object: JObject, method: &str) -> Result<Vec<String>, Error> {
+    array(env, imports_object, method, "()[Ljava/lang/String;")?
+        .into_iter()
+        .map(|string| Ok(env.get_string(JString::from(string))?.into()))
+        .collect()
+}
+
+/// Build the import object of `module` based on an `org.wasmer.Imports`
+/// object. A null object represents an empty set of imports.
+pub fn import_object(
+    env: &JNIEnv,
+    module: &Module,
+    imports_object: JObject,
+) -> Result<ImportObject, Error> {
+    let mut import_object = java_import_object(env, module, imports_object)?;
+
+    // The functions called by the profiling instrumentation, if any.
+    profiler::register_imports(&mut import_object, module);
+
+    Ok(import_object)
+}
+
+fn java_import_object(
+    env: &JNIEnv,
+    module: &Module,
+    imports_object: JObject,
+) -> Result<ImportObject, Error> {
+    if imports_object.is_null() {
+        return Ok(ImportObject::new());
+    }
+
+    let wasi_object = env.get_field(imports_object, "wasi", "Lorg/wasmer/Wasi;")?.l()?;
+    let mut import_object = if wasi_object.is_null() {
+        ImportObject::new()
+    } else {
+        wasi::generate_import_object(env, module, wasi_object)?
+    };
+
+    let namespaces = strings(env, imports_object, "getMemoryNamespaces")?;
+    let names = strings(env, imports_object, "getMemoryNames")?;
+    let memories = array(env, imports_object, "getMemories", "()[Lorg/wasmer/Memory;")?;
+    let mut memory_namespaces: HashMap<String, Exports> = HashMap::new();
+
+    for ((namespace, name), memory_object) in namespaces.into_iter().zip(names).zip(memories) {
+        let memory_pointer: jptr = env.get_field(memory_object, "memoryPointer", "J")?.j()?;
+        let memory: &Memory = Into::<Pointer<Memory>>::into(memory_pointer).borrow();
+
+        // Cloning a WebAssembly memory shares its data, which is
+        // what makes a shared memory visible from several instances.
+        memory_namespaces
+            .entry(namespace)
+            .or_insert_with(Exports::new)
+            .insert(name, (*memory.memory).clone());
+    }
+
+    for (namespace_name, namespace) in memory_namespaces {
+        import_object.register(namespace_name, namespace);
+    }
+
+    Ok(import_object)
+}
@@ -1,30 +1,45 @@
 use crate::{
-    exception::{joption_or_throw, runtime_error, Error},
+    config::Config,
+    descriptor,
+    exception::{call_error, joption_or_throw, runtime_error, Error},
+    imports,
+    limits,
     memory,
     memory::Memory,
+    profiler::{self, Profile},
     types::{jptr, Pointer},
-    value::{Value, DOUBLE_CLASS, FLOAT_CLASS, INT_CLASS, LONG_CLASS},
+    value::{Value, DOUBLE_CLASS, FLOAT_CLASS, INT_CLASS, LONG_CLASS, V128_CLASS},
 };
 use jni::{
     objects::{GlobalRef, JClass, JObject, JString, JValue},
-    sys::{jbyteArray, jobjectArray},
+    sys::{jbyteArray, jlong, jobject, jobjectArray},
     JNIEnv,
 };
-use std::{collections::HashMap, convert::TryFrom, panic, rc::Rc};
-use wasmer_runtime::{imports, instantiate, DynFunc, Export, Value as WasmValue};
-use wasmer_runtime as core;
+use std::{cell::RefCell, collections::HashMap, convert::TryFrom, panic, rc::Rc, sync::Arc};
+use wasmer::{vm, Extern, Instance as WasmInstance, Val as WasmValue};
 
 pub struct Instance {
     pub java_instance_object: GlobalRef,
-    pub instance: Rc<core::Instance>,
+    pub instance: Rc<WasmInstance>,
     pub memories: HashMap<String, Memory>,
+    // The memories defined by the instance, exported or not.
+    pub defined_memories: Vec<Arc<dyn vm::Memory>>,
+    pub profile: Option<Rc<RefCell<Profile>>>,
 }
 
 impl Instance {
-    fn new(java_instance_object: GlobalRef, module_bytes: Vec<u8>) -> Result<Self, Error> {
-        let module_bytes = module_bytes.as_slice();
-        let imports = imports! {};
-        let instance = match instantiate(module_bytes, &imports) {
+    fn new(
+        env: &JNIEnv,
+        java_instance_object: GlobalRef,
+        module_bytes: Vec<u8>,
+        imports_object: JObject,
+        config: &Config,
+    ) -> Result<Self, Error> {
+        let module = config.compile(module_bytes.as_slice())?;
+        let import_object = imports::import_object(env, &module, imports_object)?;
+        let (instance, defined_memories) =
+            limits::instantiate(None, || WasmInstance::new(&module, &import_object));
+        let instance = match instance {
             Ok(instance) => Rc::new(instance),
             Err(e) => {
                 return Err(runtime_error(format!(
@@ -35,9 +50,10 @@ impl Instance {
         };
 
         let memories: HashMap<String, Memory> = instance
-            .exports()
+            .exports
+            .iter()
             .filter_map(|(export_name, export)| match export {
-                Export::Memory(memory) => Some((export_name.to_string(), Memory::new(Rc::new(memory.clone())))),
+                Extern::Memory(memory) => Some((export_name.to_string(), Memory::new(Arc::new(memory.clone())))),
                 _ => None,
             })
             .collect();
@@ -46,24 +62,36 @@ impl Instance {
             java_instance_object,
             instance,
             memories,
+            defined_memories,
+            profile: if profiler::is_profiled(&module) {
+                Some(Rc::new(RefCell::new(Profile::default())))
+            } else {
+                None
+            },
         })
     }
 
     fn call_exported_function(
         &self,
+        env: &JNIEnv,
         export_name: String,
         arguments: Vec<WasmValue>,
     ) -> Result<Box<[WasmValue]>, Error> {
-        let function: DynFunc = self.instance.exports.get(&export_name).map_err(|_| {
+        let function = self.instance.exports.get_function(&export_name).map_err(|_| {
             runtime_error(format!(
                 "Exported function `{}` does not exist",
                 export_name
             ))
         })?;
 
-        function
+        // Record the guest calls in the profile of this instance, if any.
+        let _profile_guard = self.profile.as_ref().map(Profile::activate);
+
+        let results = function
             .call(arguments.as_slice())
-            .map_err(|e| runtime_error(format!("{}", e)))
+            .map_err(|error| call_error(env, error))?;
+
+        Ok(results)
     }
 }
 
@@ -73,12 +101,15 @@ pub extern "system" fn Java_org_wasmer_Instance_nativeInstantiate(
     _class: JClass,
     this: JObject,
     module_bytes: jbyteArray,
+    imports_object: JObject,
+    config_object: JObject,
 ) -> jptr {
     let output = panic::catch_unwind(|| {
         let module_bytes = env.convert_byte_array(module_bytes)?;
         let java_instance = env.new_global_ref(this)?;
+        let config = Config::from_java(&env, config_object)?;
 
-        let instance = Instance::new(java_instance, module_bytes)?;
+        let instance = Instance::new(&env, java_instance, module_bytes, imports_object, &config)?;
 
         Ok(Pointer::new(instance).into())
     });
@@ -86,6 +117,20 @@ pub extern "system" fn Java_org_wasmer_Instance_nativeInstantiate(
     joption_or_throw(&env, output).unwrap_or(0)
 }
 
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Instance_nativeDescribe(
+    env: JNIEnv,
+    _class: JClass,
+    instance_pointer: jptr,
+) -> jobject {
+    let output = panic::catch_unwind(|| {
+        let instance: &Instance = Into::<Pointer<Instance>>::into(instance_pointer).borrow();
+        Ok(descriptor::describe(&env, instance.instance.module())?.into_inner())
+    });
+
+    joption_or_throw(&env, output).unwrap_or(JObject::null().into_inner())
+}
+
 #[no_mangle]
 pub extern "system" fn Java_org_wasmer_Instance_nativeDrop(
     _env: JNIEnv,
@@ -114,6 +159,7 @@ pub extern "system" fn Java_org_wasmer_Instance_nativeCallExportedFunction<'a>(
             .collect::<Result<Vec<JObject>, Error>>()?;
 
         let results = instance.call_exported_function(
+            &env,
             export_name.clone(),
             arguments
                 .iter()
@@ -152,7 +198,18 @@ pub extern "system" fn Java_org_wasmer_Instance_nativeCallExportedFunction<'a>(
                     WasmValue::F64(val) => {
                         env.new_object(DOUBLE_CLASS, "(D)V", &[JValue::from(*val)])
                     }
-                    _ => unreachable!(),
+                    WasmValue::V128(val) => env.new_object(
+                        V128_CLASS,
+                        "(JJ)V",
+                        &[
+                            JValue::from(*val as u64 as i64),
+                            JValue::from((*val >> 64) as u64 as i64),
+                        ],
+                    ),
+                    _ => Err(runtime_error(format!(
+                        "The result {}nth of `{}` cannot be converted into a Java value.",
+                        nth, export_name,
+                    ))),
                 }?;
 
                 env.set_object_array_element(obj_array, nth as i32, obj)?;
@@ -184,8 +241,8 @@ pub extern "system" fn Java_org_wasmer_Instance_nativeInitializeExportedFunction
             )?
             .l()?;
 
-        for (export_name, export) in instance.instance.exports() {
-            if let Export::Function { .. } = export {
+        for (export_name, export) in instance.instance.exports.iter() {
+            if let Extern::Function(_) = export {
                 let name = env.new_string(export_name)?;
 
                 env.call_method(
@@ -218,3 +275,59 @@ pub extern "system" fn Java_org_wasmer_Instance_nativeInitializeExportedMemories
 
     joption_or_throw(&env, output).unwrap_or(())
 }
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Instance_nativeProfile(
+    env: JNIEnv,
+    _class: JClass,
+    instance_pointer: jptr,
+    profile_object: JObject,
+) {
+    let output = panic::catch_unwind(|| {
+        let instance: &Instance = Into::<Pointer<Instance>>::into(instance_pointer).borrow();
+        let profile = instance.profile.as_ref().ok_or_else(|| {
+            runtime_error(format!("The module has not been compiled with profiling"))
+        })?;
+
+        profile
+            .borrow()
+            .to_java(&env, &instance.instance.module(), profile_object)
+    });
+
+    joption_or_throw(&env, output).unwrap_or(())
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Instance_nativeResetProfile(
+    env: JNIEnv,
+    _class: JClass,
+    instance_pointer: jptr,
+) {
+    let output = panic::catch_unwind(|| {
+        let instance: &Instance = Into::<Pointer<Instance>>::into(instance_pointer).borrow();
+        let profile = instance.profile.as_ref().ok_or_else(|| {
+            runtime_error(format!("The module has not been compiled with profiling"))
+        })?;
+
+        profile.borrow_mut().reset();
+
+        Ok(())
+    });
+
+    joption_or_throw(&env, output).unwrap_or(())
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Instance_nativeMemorySize(
+    env: JNIEnv,
+    _class: JClass,
+    instance_pointer: jptr,
+) -> jlong {
+    let output = panic::catch_unwind(|| {
+        let instance: &Instance = Into::<Pointer<Instance>>::into(instance_pointer).borrow();
+
+        Ok(limits::memories_size(&instance.defined_memories) as jlong)
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
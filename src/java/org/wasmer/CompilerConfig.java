@@ -0,0 +1,46 @@
+package org.wasmer;
+
+/**
+ * `CompilerConfig` is a Java class that represents the options used
+ * to compile a WebAssembly module.
+ *
+ * Example:
+ * <pre>{@code
+ * CompilerConfig config = new CompilerConfig()
+ *     .features(new Features().simd(true))
+ *     .profiling(true);
+ * Module module = new Module(wasmBytes, config);
+ * }</pre>
+ */
+public class CompilerConfig {
+    private boolean profiling = false;
+    private Features features = new Features();
+
+    /**
+     * Set the WebAssembly features enabled when compiling the module.
+     *
+     * @param features WebAssembly features.
+     * @return This configuration.
+     */
+    public CompilerConfig features(Features features) {
+        this.features = features;
+
+        return this;
+    }
+
+    /**
+     * Instrument every guest function to record its number of calls
+     * and the time spent in it. The recorded data is read with
+     * `Instance.profile`. This slows the guest down, and is meant to
+     * be enabled on purpose only. The instrumentation is kept when the
+     * module is serialized, so a deserialized module is profiled too.
+     *
+     * @param profiling Whether profiling is enabled.
+     * @return This configuration.
+     */
+    public CompilerConfig profiling(boolean profiling) {
+        this.profiling = profiling;
+
+        return this;
+    }
+}
@@ -2,9 +2,12 @@ package org.wasmer;
 
 import org.wasmer.exports.Export;
 import org.wasmer.exports.Function;
+import org.wasmer.types.ExportDescriptor;
 
 import java.lang.ClassCastException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -63,6 +66,33 @@ public class Exports {
         return (Memory) this.inner.get(name);
     }
 
+    /**
+     * Return the descriptor of the export with the name `name`, i.e.
+     * its type, e.g. the signature of an exported function. It is
+     * computed once per module, so it can be used to check the
+     * arguments of a call ahead of time.
+     *
+     * @param name Name of the export.
+     */
+    public ExportDescriptor getDescriptor(String name) {
+        return this.instance.getDescriptor().getExport(name);
+    }
+
+    /**
+     * Return all the exported memories.
+     */
+    List<Memory> getMemories() {
+        List<Memory> memories = new ArrayList<Memory>();
+
+        for (Export export : this.inner.values()) {
+            if (export instanceof Memory) {
+                memories.add((Memory) export);
+            }
+        }
+
+        return memories;
+    }
+
     /**
      * Called by Rust to add a new exported function.
      */
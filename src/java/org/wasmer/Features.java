@@ -0,0 +1,85 @@
+package org.wasmer;
+
+/**
+ * `Features` is a Java class that represents the set of WebAssembly
+ * proposals enabled when compiling or validating a module.
+ *
+ * All the proposals are disabled by default. A module importing a
+ * shared memory must be compiled with the threads proposal.
+ *
+ * `Module.validate` and the compiler enable the same proposals: a
+ * module valid with some features compiles with the same features.
+ *
+ * Example:
+ * <pre>{@code
+ * Features features = new Features().simd(true);
+ *
+ * if (Module.validate(wasmBytes, features)) {
+ *     Module module = new Module(wasmBytes, new CompilerConfig().features(features));
+ * }
+ * }</pre>
+ */
+public class Features {
+    private boolean simd = false;
+    private boolean threads = false;
+    private boolean bulkMemory = false;
+    private boolean multiValue = false;
+
+    /**
+     * Enable the SIMD proposal, i.e. the `v128` type and its
+     * instructions. `v128` values are represented by `V128`.
+     *
+     * @param enabled Whether the proposal is enabled.
+     * @return This set of features.
+     */
+    public Features simd(boolean enabled) {
+        this.simd = enabled;
+
+        return this;
+    }
+
+    /**
+     * Enable the threads proposal, i.e. shared memories and atomic
+     * instructions.
+     *
+     * Only shared memories are supported: the compiler does not
+     * support atomic instructions, so a module using them is invalid
+     * and cannot be compiled. The guests can share data through a
+     * shared memory, while the host synchronizes them with the
+     * `atomic*` methods of `Memory`.
+     *
+     * @param enabled Whether the proposal is enabled.
+     * @return This set of features.
+     */
+    public Features threads(boolean enabled) {
+        this.threads = enabled;
+
+        return this;
+    }
+
+    /**
+     * Enable the bulk memory proposal, e.g. `memory.copy` and
+     * `memory.fill`.
+     *
+     * @param enabled Whether the proposal is enabled.
+     * @return This set of features.
+     */
+    public Features bulkMemory(boolean enabled) {
+        this.bulkMemory = enabled;
+
+        return this;
+    }
+
+    /**
+     * Enable the multi-value proposal, i.e. functions and blocks
+     * returning several values.
+     *
+     * @param enabled Whether the proposal is enabled.
+     * @return This set of features.
+     */
+    public Features multiValue(boolean enabled) {
+        this.multiValue = enabled;
+
+        return this;
+    }
+}
@@ -0,0 +1,85 @@
+package org.wasmer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * `Imports` is a Java class that represents the set of values
+ * imported by a WebAssembly instance.
+ *
+ * Example:
+ * <pre>{@code
+ * Memory memory = Memory.shared(1, 16);
+ *
+ * Imports imports = new Imports()
+ *     .memory("env", "memory", memory);
+ *
+ * Instance instance1 = module.instantiate(imports);
+ * Instance instance2 = module.instantiate(imports);
+ * }</pre>
+ */
+public class Imports {
+    private Wasi wasi;
+    private List<String> memoryNamespaces;
+    private List<String> memoryNames;
+    private List<Memory> memories;
+
+    /**
+     * The constructor instantiates an empty set of imports.
+     */
+    public Imports() {
+        this.memoryNamespaces = new ArrayList<String>();
+        this.memoryNames = new ArrayList<String>();
+        this.memories = new ArrayList<Memory>();
+    }
+
+    /**
+     * Import the WASI system calls, based on a WASI environment.
+     *
+     * @param wasi WASI environment.
+     * @return This set of imports.
+     */
+    public Imports wasi(Wasi wasi) {
+        this.wasi = wasi;
+
+        return this;
+    }
+
+    /**
+     * Import a memory. A shared memory (see `Memory.shared`) can be
+     * imported by several instances.
+     *
+     * @param namespace Namespace of the import, e.g. `env`.
+     * @param name Name of the import, e.g. `memory`.
+     * @param memory Memory to import.
+     * @return This set of imports.
+     */
+    public Imports memory(String namespace, String name, Memory memory) {
+        this.memoryNamespaces.add(namespace);
+        this.memoryNames.add(name);
+        this.memories.add(memory);
+
+        return this;
+    }
+
+    /**
+     * Called by Rust to read the namespaces of the imported memories.
+     */
+    private String[] getMemoryNamespaces() {
+        return this.memoryNamespaces.toArray(new String[0]);
+    }
+
+    /**
+     * Called by Rust to read the names of the imported memories.
+     */
+    private String[] getMemoryNames() {
+        return this.memoryNames.toArray(new String[0]);
+    }
+
+    /**
+     * Called by Rust to read the imported memories.
+     */
+    private Memory[] getMemories() {
+        return this.memories.toArray(new Memory[0]);
+    }
+}
@@ -1,5 +1,7 @@
 package org.wasmer;
 
+import org.wasmer.types.ModuleDescriptor;
+
 /**
  * `Instance` is a Java class that represents a WebAssembly instance.
  *
@@ -17,11 +19,15 @@ public class Instance {
             System.loadLibrary("wasmer_jni");
         }
     }
-    private native long nativeInstantiate(Instance self, byte[] moduleBytes) throws RuntimeException;
+    private native long nativeInstantiate(Instance self, byte[] moduleBytes, Imports imports, CompilerConfig config) throws RuntimeException;
     private native void nativeDrop(long instancePointer);
+    private native ModuleDescriptor nativeDescribe(long instancePointer);
     protected native Object[] nativeCallExportedFunction(long instancePointer, String exportName, Object[] arguments) throws RuntimeException;
     protected static native void nativeInitializeExportedFunctions(long instancePointer);
     protected static native void nativeInitializeExportedMemories(long instancePointer);
+    private native void nativeProfile(long instancePointer, Profile profile) throws RuntimeException;
+    private native void nativeResetProfile(long instancePointer) throws RuntimeException;
+    private native long nativeMemorySize(long instancePointer);
 
     /**
      * All WebAssembly exports.
@@ -33,6 +39,17 @@ public class Instance {
      */
     protected long instancePointer;
 
+    /**
+     * The module this instance has been created from, if any.
+     */
+    private Module module;
+
+    /**
+     * The descriptor of the imports and the exports, computed on
+     * first use, or shared with the module.
+     */
+    private ModuleDescriptor descriptor;
+
     /**
      * The constructor instantiates a new WebAssembly instance based on
      * WebAssembly bytes.
@@ -40,9 +57,44 @@ public class Instance {
      * @param moduleBytes WebAssembly bytes.
      */
     public Instance(byte[] moduleBytes) throws RuntimeException {
+        this(moduleBytes, (Imports) null);
+    }
+
+    /**
+     * The constructor instantiates a new WebAssembly instance based on
+     * WebAssembly bytes, with a WASI environment.
+     *
+     * @param moduleBytes WebAssembly bytes.
+     * @param wasi WASI environment, or `null` if the module does not use WASI.
+     */
+    public Instance(byte[] moduleBytes, Wasi wasi) throws RuntimeException {
+        this(moduleBytes, new Imports().wasi(wasi));
+    }
+
+    /**
+     * The constructor instantiates a new WebAssembly instance based on
+     * WebAssembly bytes, with a set of imports.
+     *
+     * @param moduleBytes WebAssembly bytes.
+     * @param imports Imports, or `null` if the module has no import.
+     */
+    public Instance(byte[] moduleBytes, Imports imports) throws RuntimeException {
+        this(moduleBytes, imports, null);
+    }
+
+    /**
+     * The constructor instantiates a new WebAssembly instance based on
+     * WebAssembly bytes, with a set of imports, compiled with a given
+     * configuration.
+     *
+     * @param moduleBytes WebAssembly bytes.
+     * @param imports Imports, or `null` if the module has no import.
+     * @param config Compiler configuration, or `null` for the default configuration.
+     */
+    public Instance(byte[] moduleBytes, Imports imports, CompilerConfig config) throws RuntimeException {
         this.exports = new Exports(this);
 
-        long instancePointer = this.nativeInstantiate(this, moduleBytes);
+        long instancePointer = this.nativeInstantiate(this, moduleBytes, imports, config);
         this.instancePointer = instancePointer;
 
         this.nativeInitializeExportedFunctions(instancePointer);
@@ -53,6 +105,65 @@ public class Instance {
         this.exports = new Exports(this);
     }
 
+    Instance(Module module) {
+        this();
+        this.module = module;
+    }
+
+    /**
+     * Return the descriptor of the imports and the exports of the
+     * instance, with their types. If the instance has been created
+     * from a `Module`, the descriptor of the module is shared.
+     *
+     * @return The module descriptor.
+     */
+    public synchronized ModuleDescriptor getDescriptor() {
+        if (this.descriptor == null && this.module != null) {
+            try {
+                this.descriptor = this.module.getDescriptor();
+            } catch (IllegalStateException e) {
+                // The module has been closed before being described,
+                // the instance describes itself.
+            }
+        }
+
+        if (this.descriptor == null) {
+            this.descriptor = this.nativeDescribe(this.instancePointer);
+        }
+
+        return this.descriptor;
+    }
+
+    /**
+     * Return the data recorded so far by the profiler. The instance
+     * must be compiled with profiling, see
+     * `CompilerConfig.profiling`.
+     *
+     * @return The profile.
+     */
+    public Profile profile() throws RuntimeException {
+        Profile profile = new Profile();
+        this.nativeProfile(this.instancePointer, profile);
+
+        return profile;
+    }
+
+    /**
+     * Forget the data recorded so far by the profiler.
+     */
+    public void resetProfile() throws RuntimeException {
+        this.nativeResetProfile(this.instancePointer);
+    }
+
+    /**
+     * Return the size of the memories defined by this instance, in
+     * bytes, whether they are exported or not. Imported memories are
+     * not included: they belong to the host.
+     */
+    long memorySize() {
+        return this.nativeMemorySize(this.instancePointer);
+    }
+
     /**
      * Delete an instance object pointer.
      */
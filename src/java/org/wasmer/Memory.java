@@ -26,10 +26,34 @@ import java.nio.ReadOnlyBufferException;
  * memoryBuffer.position(0);
  * memoryBuffer.get(bytes);
  * }</pre>
+ *
+ * A shared memory can be imported by several instances, each of
+ * them running on its own thread. The `atomic*` methods must be
+ * used to access it concurrently.
  */
 public class Memory implements Export {
+    /**
+     * Native bindings.
+     */
+    static {
+        if (!Native.LOADED_EMBEDDED_LIBRARY) {
+            System.loadLibrary("wasmer_jni");
+        }
+    }
     private native void nativeMemoryView(Memory memory, long memoryPointer);
     private native int nativeMemoryGrow(Memory memory, long memoryPointer, int page);
+    private native void nativeDrop(long memoryPointer);
+    private static native void nativeCopy(long sourcePointer, long destinationPointer, int sourceOffset, int destinationOffset, int length) throws RuntimeException;
+    private static native void nativeCopyRanges(long sourcePointer, long destinationPointer, int[] sourceOffsets, int[] destinationOffsets, int[] lengths) throws RuntimeException;
+    private static native long nativeSharedMemory(int minimumPages, int maximumPages) throws RuntimeException;
+    private static native int nativeAtomicGetInt(long memoryPointer, int offset);
+    private static native void nativeAtomicSetInt(long memoryPointer, int offset, int value);
+    private static native int nativeAtomicGetAndAddInt(long memoryPointer, int offset, int delta);
+    private static native boolean nativeAtomicCompareAndSetInt(long memoryPointer, int offset, int expected, int value);
+    private static native long nativeAtomicGetLong(long memoryPointer, int offset);
+    private static native void nativeAtomicSetLong(long memoryPointer, int offset, long value);
+    private static native long nativeAtomicGetAndAddLong(long memoryPointer, int offset, long delta);
+    private static native boolean nativeAtomicCompareAndSetLong(long memoryPointer, int offset, long expected, long value);
 
     /**
      * Represents the actual WebAssembly memory data, borrowed from the runtime (in Rust).
@@ -39,7 +63,22 @@ public class Memory implements Export {
     private long memoryPointer;
 
     private Memory() {
-        // This object is instantiated by Rust.
+        // This object is instantiated by Rust, or by `Memory.shared`.
+    }
+
+    /**
+     * Create a new shared memory, to be imported by several instances
+     * with `Imports.memory`.
+     *
+     * @param minimumPages The initial number of pages. 1 page size is 64KiB.
+     * @param maximumPages The maximum number of pages, required for a shared memory.
+     * @return A new shared memory.
+     */
+    public static Memory shared(int minimumPages, int maximumPages) throws RuntimeException {
+        Memory memory = new Memory();
+        memory.memoryPointer = Memory.nativeSharedMemory(minimumPages, maximumPages);
+
+        return memory;
     }
 
     /**
@@ -67,13 +106,150 @@ public class Memory implements Export {
         }
     }
 
+    /**
+     * Delete a memory object pointer, which is called by the garbage
+     * collector before an object is removed from the memory.
+     *
+     * The WebAssembly memory itself stays alive as long as an instance
+     * uses it.
+     */
+    public void finalize() {
+        if (this.memoryPointer != 0L) {
+            this.nativeDrop(this.memoryPointer);
+            this.memoryPointer = 0L;
+        }
+    }
+
     /**
      * Grow this memory by the specified number of pages.
      *
      * @param page The number of pages to grow. 1 page size is 64KiB.
      * @return The previous number of pages.
      */
-    public int grow(int page) {
+    public int grow(int page) throws RuntimeException {
         return this.nativeMemoryGrow(this, this.memoryPointer, page);
     }
+
+    /**
+     * Copy bytes from this memory to another memory, e.g. the memory
+     * of another instance, without going through the Java heap. The
+     * ranges can overlap if both memories are the same.
+     *
+     * @param destination The memory to copy the bytes to.
+     * @param sourceOffset The offset of the bytes in this memory.
+     * @param destinationOffset The offset of the bytes in the destination memory.
+     * @param length The number of bytes to copy.
+     * @throws RuntimeException if a range is out of bounds; nothing is copied then.
+     */
+    public void copyTo(Memory destination, int sourceOffset, int destinationOffset, int length) throws RuntimeException {
+        Memory.nativeCopy(this.memoryPointer, destination.memoryPointer, sourceOffset, destinationOffset, length);
+    }
+
+    /**
+     * Copy several ranges of bytes from this memory to another memory,
+     * in a single native call. The nth range starts at
+     * `sourceOffsets[n]` in this memory, at `destinationOffsets[n]` in
+     * the destination memory, and is `lengths[n]` bytes long.
+     *
+     * @param destination The memory to copy the bytes to.
+     * @param sourceOffsets The offsets of the ranges in this memory.
+     * @param destinationOffsets The offsets of the ranges in the destination memory.
+     * @param lengths The lengths of the ranges.
+     * @throws RuntimeException if a range is out of bounds; nothing is copied then.
+     */
+    public void copyTo(Memory destination, int[] sourceOffsets, int[] destinationOffsets, int[] lengths) throws RuntimeException {
+        if (sourceOffsets.length != destinationOffsets.length || sourceOffsets.length != lengths.length) {
+            throw new IllegalArgumentException("The offsets and the lengths must have the same size");
+        }
+
+        Memory.nativeCopyRanges(this.memoryPointer, destination.memoryPointer, sourceOffsets, destinationOffsets, lengths);
+    }
+
+    /**
+     * Atomically read the 32-bit integer at `offset`.
+     *
+     * @param offset The offset in bytes, aligned on 4 bytes.
+     * @return The read value.
+     */
+    public int atomicGetInt(int offset) {
+        return Memory.nativeAtomicGetInt(this.memoryPointer, offset);
+    }
+
+    /**
+     * Atomically write the 32-bit integer at `offset`.
+     *
+     * @param offset The offset in bytes, aligned on 4 bytes.
+     * @param value The value to write.
+     */
+    public void atomicSetInt(int offset, int value) {
+        Memory.nativeAtomicSetInt(this.memoryPointer, offset, value);
+    }
+
+    /**
+     * Atomically add `delta` to the 32-bit integer at `offset`.
+     *
+     * @param offset The offset in bytes, aligned on 4 bytes.
+     * @param delta The value to add.
+     * @return The previous value.
+     */
+    public int atomicGetAndAddInt(int offset, int delta) {
+        return Memory.nativeAtomicGetAndAddInt(this.memoryPointer, offset, delta);
+    }
+
+    /**
+     * Atomically set the 32-bit integer at `offset` to `value` if it
+     * is equal to `expected`.
+     *
+     * @param offset The offset in bytes, aligned on 4 bytes.
+     * @param expected The expected value.
+     * @param value The new value.
+     * @return true if, and only if, the value has been written.
+     */
+    public boolean atomicCompareAndSetInt(int offset, int expected, int value) {
+        return Memory.nativeAtomicCompareAndSetInt(this.memoryPointer, offset, expected, value);
+    }
+
+    /**
+     * Atomically read the 64-bit integer at `offset`.
+     *
+     * @param offset The offset in bytes, aligned on 8 bytes.
+     * @return The read value.
+     */
+    public long atomicGetLong(int offset) {
+        return Memory.nativeAtomicGetLong(this.memoryPointer, offset);
+    }
+
+    /**
+     * Atomically write the 64-bit integer at `offset`.
+     *
+     * @param offset The offset in bytes, aligned on 8 bytes.
+     * @param value The value to write.
+     */
+    public void atomicSetLong(int offset, long value) {
+        Memory.nativeAtomicSetLong(this.memoryPointer, offset, value);
+    }
+
+    /**
+     * Atomically add `delta` to the 64-bit integer at `offset`.
+     *
+     * @param offset The offset in bytes, aligned on 8 bytes.
+     * @param delta The value to add.
+     * @return The previous value.
+     */
+    public long atomicGetAndAddLong(int offset, long delta) {
+        return Memory.nativeAtomicGetAndAddLong(this.memoryPointer, offset, delta);
+    }
+
+    /**
+     * Atomically set the 64-bit integer at `offset` to `value` if it
+     * is equal to `expected`.
+     *
+     * @param offset The offset in bytes, aligned on 8 bytes.
+     * @param expected The expected value.
+     * @param value The new value.
+     * @return true if, and only if, the value has been written.
+     */
+    public boolean atomicCompareAndSetLong(int offset, long expected, long value) {
+        return Memory.nativeAtomicCompareAndSetLong(this.memoryPointer, offset, expected, value);
+    }
 }
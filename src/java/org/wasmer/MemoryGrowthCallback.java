@@ -0,0 +1,16 @@
+package org.wasmer;
+
+/**
+ * Functional interface deciding whether a memory is allowed to grow,
+ * either by the host with `Memory.grow`, or by the guest with a
+ * `memory.grow` instruction. See `ResourceLimits.onMemoryGrowth`.
+ */
+@FunctionalInterface
+public interface MemoryGrowthCallback {
+    /**
+     * @param currentPages The current number of pages of the memory.
+     * @param deltaPages The number of pages to grow.
+     * @return true if, and only if, the memory is allowed to grow.
+     */
+    public boolean allow(int currentPages, int deltaPages);
+}
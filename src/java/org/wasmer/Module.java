@@ -1,5 +1,16 @@
 package org.wasmer;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import org.wasmer.types.ModuleDescriptor;
+
 /**
  * `Module` is a Java class that represents a WebAssembly module.
  *
@@ -20,15 +31,35 @@ public class Module {
             System.loadLibrary("wasmer_jni");
         }
     }
-    private native long nativeModuleInstantiate(Module self, byte[] moduleBytes) throws RuntimeException;
+    private native long nativeModuleInstantiate(Module self, byte[] moduleBytes, CompilerConfig config) throws RuntimeException;
+    private native long nativeModuleInstantiateBuffer(Module self, ByteBuffer moduleBuffer, int length, CompilerConfig config) throws RuntimeException;
     private native void nativeDrop(long modulePointer);
-    private native long nativeInstantiate(long modulePointer, Instance instance);
-    private static native boolean nativeValidate(byte[] moduleBytes);
+    private native long nativeInstantiate(long modulePointer, Instance instance, Imports imports, ResourceLimits limits);
+    private native ModuleDescriptor nativeDescribe(long modulePointer);
+    private static native boolean nativeValidate(byte[] moduleBytes, Features features);
     private native byte[] nativeSerialize(long modulePointer);
     private static native long nativeDeserialize(Module module, byte[] serializedBytes);
+    private static native long nativeDeserializeBuffer(Module module, ByteBuffer serializedBuffer, int length);
 
     private long modulePointer;
 
+    /**
+     * The descriptor of the imports and the exports, computed on
+     * first use and shared by all the instances.
+     */
+    private ModuleDescriptor descriptor;
+
+    /**
+     * The capacity of the buffer receiving the WebAssembly bytes,
+     * when the size of the channel is unknown.
+     */
+    private static final int STREAMING_BUFFER_CAPACITY = 64 * 1024;
+
+    /**
+     * The largest buffer receiving the WebAssembly bytes: a byte
+     * buffer is indexed by an `int`.
+     */
+    private static final int STREAMING_BUFFER_MAXIMUM_CAPACITY = Integer.MAX_VALUE;
 
     /**
      * Check that given bytes represent a valid WebAssembly module.
@@ -37,7 +68,19 @@ public class Module {
      * @return true if, and only if, given bytes are valid as a WebAssembly module.
      */
     public static boolean validate(byte[] moduleBytes) {
-        return Module.nativeValidate(moduleBytes);
+        return Module.nativeValidate(moduleBytes, null);
+    }
+
+    /**
+     * Check that given bytes represent a valid WebAssembly module,
+     * with a given set of WebAssembly features enabled.
+     *
+     * @param moduleBytes WebAssembly bytes.
+     * @param features WebAssembly features.
+     * @return true if, and only if, given bytes are valid as a WebAssembly module.
+     */
+    public static boolean validate(byte[] moduleBytes, Features features) {
+        return Module.nativeValidate(moduleBytes, features);
     }
 
     /**
@@ -47,12 +90,107 @@ public class Module {
      * @param moduleBytes WebAssembly bytes.
      */
     public Module(byte[] moduleBytes) throws RuntimeException {
-        long modulePointer = this.nativeModuleInstantiate(this, moduleBytes);
+        this(moduleBytes, (CompilerConfig) null);
+    }
+
+    /**
+     * The constructor instantiates a new WebAssembly module based on
+     * WebAssembly bytes, with a compiler configuration.
+     *
+     * @param moduleBytes WebAssembly bytes.
+     * @param config Compiler configuration, or `null` for the default one.
+     */
+    public Module(byte[] moduleBytes, CompilerConfig config) throws RuntimeException {
+        long modulePointer = this.nativeModuleInstantiate(this, moduleBytes, config);
         this.modulePointer = modulePointer;
     }
 
     private Module() {}
 
+    /**
+     * Compile a WebAssembly module from a channel.
+     *
+     * The bytes are read straight into a direct byte buffer, which
+     * is then compiled in place: they are not copied into another
+     * native buffer. Whether they go through the Java heap depends
+     * on the channel; a `FileChannel` writes into the direct buffer
+     * directly. When the channel is seekable (e.g. a `FileChannel`),
+     * the buffer is allocated once with the remaining size of the
+     * channel. A module cannot be larger than `Integer.MAX_VALUE`
+     * bytes.
+     *
+     * @param channel Channel to read the WebAssembly bytes from. It is not closed.
+     * @return Module object.
+     */
+    public static Module compileStreaming(ReadableByteChannel channel) throws IOException, RuntimeException {
+        return Module.compileStreaming(channel, null);
+    }
+
+    /**
+     * Compile a WebAssembly module from a channel, with a compiler
+     * configuration. See `Module.compileStreaming(ReadableByteChannel)`
+     * to learn more.
+     *
+     * @param channel Channel to read the WebAssembly bytes from. It is not closed.
+     * @param config Compiler configuration, or `null` for the default one.
+     * @return Module object.
+     */
+    public static Module compileStreaming(ReadableByteChannel channel, CompilerConfig config) throws IOException, RuntimeException {
+        int capacity = STREAMING_BUFFER_CAPACITY;
+
+        if (channel instanceof SeekableByteChannel) {
+            SeekableByteChannel seekableChannel = (SeekableByteChannel) channel;
+            long remaining = seekableChannel.size() - seekableChannel.position();
+
+            if (remaining > STREAMING_BUFFER_MAXIMUM_CAPACITY) {
+                throw new IOException("The WebAssembly module is larger than " + STREAMING_BUFFER_MAXIMUM_CAPACITY + " bytes");
+            }
+
+            // One more byte to read the end of the stream without growing the buffer.
+            capacity = (int) Math.min(STREAMING_BUFFER_MAXIMUM_CAPACITY, remaining + 1);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(capacity);
+
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                if (buffer.capacity() == STREAMING_BUFFER_MAXIMUM_CAPACITY) {
+                    throw new IOException("The WebAssembly module is larger than " + STREAMING_BUFFER_MAXIMUM_CAPACITY + " bytes");
+                }
+
+                // Double the capacity, without overflowing an `int`.
+                ByteBuffer largerBuffer = ByteBuffer.allocateDirect((int) Math.min((long) buffer.capacity() * 2, STREAMING_BUFFER_MAXIMUM_CAPACITY));
+                buffer.flip();
+                largerBuffer.put(buffer);
+                buffer = largerBuffer;
+            }
+
+            if (channel.read(buffer) < 0) {
+                break;
+            }
+        }
+
+        Module module = new Module();
+        module.modulePointer = module.nativeModuleInstantiateBuffer(module, buffer, buffer.position(), config);
+
+        return module;
+    }
+
+    /**
+     * Compile a WebAssembly module from an input stream. See
+     * `Module.compileStreaming(ReadableByteChannel)` to learn more.
+     *
+     * An input stream can only be read into a Java array: the bytes
+     * go through a small buffer on the Java heap, chunk by chunk,
+     * before reaching the direct byte buffer.
+     *
+     * @param stream Stream to read the WebAssembly bytes from. It is not closed.
+     * @return Module object.
+     */
+    public static Module compileStreaming(InputStream stream) throws IOException, RuntimeException {
+        return Module.compileStreaming(Channels.newChannel(stream));
+    }
+
     /**
      * Delete a module object pointer.
      */
@@ -71,18 +209,83 @@ public class Module {
         this.close();
     }
 
+    /**
+     * Return the descriptor of the imports and the exports of the
+     * module, with their types. It is computed once, and shared by
+     * all the instances of the module.
+     *
+     * @return The module descriptor.
+     */
+    public synchronized ModuleDescriptor getDescriptor() {
+        if (this.descriptor == null) {
+            if (this.modulePointer == 0L) {
+                throw new IllegalStateException("The module is closed");
+            }
+
+            this.descriptor = this.nativeDescribe(this.modulePointer);
+        }
+
+        return this.descriptor;
+    }
+
     /**
      * Create an instance object based on a module object.
      *
      * @return Instance object.
      */
     public Instance instantiate() {
-        Instance instance = new Instance();
-        long instancePointer = this.nativeInstantiate(this.modulePointer, instance);
+        return this.instantiate((Imports) null);
+    }
+
+    /**
+     * Create an instance object based on a module object, with a WASI
+     * environment.
+     *
+     * @param wasi WASI environment, or `null` if the module does not use WASI.
+     * @return Instance object.
+     */
+    public Instance instantiate(Wasi wasi) {
+        return this.instantiate(new Imports().wasi(wasi));
+    }
+
+    /**
+     * Create an instance object based on a module object, with a set
+     * of imports.
+     *
+     * @param imports Imports, or `null` if the module has no import.
+     * @return Instance object.
+     */
+    public Instance instantiate(Imports imports) {
+        return this.instantiate(imports, null);
+    }
+
+    /**
+     * Create an instance object based on a module object, with
+     * resource limits.
+     *
+     * @param limits Resource limits.
+     * @return Instance object.
+     */
+    public Instance instantiate(ResourceLimits limits) {
+        return this.instantiate(null, limits);
+    }
+
+    /**
+     * Create an instance object based on a module object, with a set
+     * of imports and resource limits.
+     *
+     * @param imports Imports, or `null` if the module has no import.
+     * @param limits Resource limits, or `null` if the instance is not limited.
+     * @return Instance object.
+     */
+    public Instance instantiate(Imports imports, ResourceLimits limits) {
+        Instance instance = new Instance(this);
+        long instancePointer = this.nativeInstantiate(this.modulePointer, instance, imports, limits);
         instance.instancePointer = instancePointer;
 
         instance.nativeInitializeExportedFunctions(instancePointer);
         instance.nativeInitializeExportedMemories(instancePointer);
+
         return instance;
     }
 
@@ -106,4 +309,48 @@ public class Module {
         module.modulePointer = modulePointer;
         return module;
     }
+
+    /**
+     * Create an original Module object from a direct byte buffer,
+     * e.g. a `MappedByteBuffer`. The bytes between the position and
+     * the limit of the buffer are read in place, without being copied
+     * on the Java heap.
+     *
+     * @param serializedBuffer Direct byte buffer holding the serialized module.
+     * @return Module object.
+     */
+    public static Module deserialize(ByteBuffer serializedBuffer) {
+        if (!serializedBuffer.isDirect()) {
+            throw new IllegalArgumentException("The serialized module buffer must be a direct byte buffer");
+        }
+
+        // The slice starts at the position of the buffer.
+        ByteBuffer slice = serializedBuffer.slice();
+
+        Module module = new Module();
+        module.modulePointer = Module.nativeDeserializeBuffer(module, slice, slice.remaining());
+
+        return module;
+    }
+
+    /**
+     * Create an original Module object from a file holding a
+     * serialized module, e.g. written from `Module.serialize`.
+     *
+     * The file is mapped in memory read-only, instead of being read
+     * on the Java heap. The processes loading the same file share its
+     * pages in the page cache.
+     *
+     * @param serializedPath Path of the serialized module.
+     * @return Module object.
+     */
+    public static Module deserialize(Path serializedPath) throws IOException {
+        try (FileChannel channel = FileChannel.open(serializedPath, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("The serialized module `" + serializedPath + "` is larger than 2 GiB");
+            }
+
+            return Module.deserialize(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
 }
@@ -0,0 +1,113 @@
+package org.wasmer;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * `Profile` is a Java class that represents the data recorded by a
+ * WebAssembly instance compiled with profiling, see
+ * `CompilerConfig.profiling`.
+ *
+ * Example:
+ * <pre>{@code
+ * Module module = new Module(wasmBytes, new CompilerConfig().profiling(true));
+ * Instance instance = module.instantiate();
+ * instance.exports.getFunction("sum").apply(1, 2);
+ *
+ * Profile profile = instance.profile();
+ * long calls = profile.getFunction("sum").calls;
+ *
+ * // To be consumed by `flamegraph.pl` for instance.
+ * String stacks = profile.toCollapsedStacks();
+ * }</pre>
+ */
+public class Profile {
+    /**
+     * The profile of one guest function.
+     */
+    public static class FunctionProfile {
+        /**
+         * The name of the function, i.e. its export name if any,
+         * `func[index]` otherwise.
+         */
+        public final String name;
+
+        /**
+         * The number of calls.
+         */
+        public final long calls;
+
+        /**
+         * The time spent in the function, including its callees, in nanoseconds.
+         */
+        public final long inclusiveNanos;
+
+        /**
+         * The time spent in the function, excluding its callees, in nanoseconds.
+         */
+        public final long exclusiveNanos;
+
+        private FunctionProfile(String name, long calls, long inclusiveNanos, long exclusiveNanos) {
+            this.name = name;
+            this.calls = calls;
+            this.inclusiveNanos = inclusiveNanos;
+            this.exclusiveNanos = exclusiveNanos;
+        }
+    }
+
+    private Map<String, FunctionProfile> functions;
+    private Map<String, Long> stacks;
+
+    protected Profile() {
+        this.functions = new LinkedHashMap<String, FunctionProfile>();
+        this.stacks = new LinkedHashMap<String, Long>();
+    }
+
+    /**
+     * Return the profile of all the called functions.
+     */
+    public Collection<FunctionProfile> getFunctions() {
+        return this.functions.values();
+    }
+
+    /**
+     * Return the profile of the function with the name `name`, or
+     * `null` if it has not been called.
+     *
+     * @param name Name of the function.
+     */
+    public FunctionProfile getFunction(String name) {
+        return this.functions.get(name);
+    }
+
+    /**
+     * Return the profile in the collapsed stack format, i.e. one line
+     * per call stack, with the names of the functions separated by
+     * semicolons, followed by the time spent in the innermost
+     * function in nanoseconds.
+     */
+    public String toCollapsedStacks() {
+        StringBuilder output = new StringBuilder();
+
+        for (Map.Entry<String, Long> stack : this.stacks.entrySet()) {
+            output.append(stack.getKey()).append(' ').append(stack.getValue()).append('\n');
+        }
+
+        return output.toString();
+    }
+
+    /**
+     * Called by Rust to add the profile of a function.
+     */
+    private void addFunction(String name, long calls, long inclusiveNanos, long exclusiveNanos) {
+        this.functions.put(name, new FunctionProfile(name, calls, inclusiveNanos, exclusiveNanos));
+    }
+
+    /**
+     * Called by Rust to add the time spent in a call stack.
+     */
+    private void addStack(String stack, long exclusiveNanos) {
+        this.stacks.put(stack, exclusiveNanos);
+    }
+}
@@ -0,0 +1,89 @@
+package org.wasmer;
+
+/**
+ * `ResourceLimits` is a Java class that represents the resources an
+ * instance is allowed to use. The limits are enforced when the
+ * memories and the tables of the instance are allocated; the
+ * memories and the tables it imports are not limited.
+ *
+ * Example:
+ * <pre>{@code
+ * ResourceLimits limits = new ResourceLimits()
+ *     .maximumMemoryPages(256)
+ *     .maximumTableElements(1024)
+ *     .preallocateMemoryPages(32)
+ *     .onMemoryGrowth((currentPages, deltaPages) -> deltaPages <= 16);
+ *
+ * Instance instance = module.instantiate(limits);
+ * }</pre>
+ */
+public class ResourceLimits {
+    /**
+     * A negative value means no limit.
+     */
+    private int maximumMemoryPages = -1;
+    private int maximumTableElements = -1;
+    private int preallocatedMemoryPages = 0;
+    private MemoryGrowthCallback memoryGrowthCallback;
+
+    /**
+     * Limit the size of each linear memory of the instance: its
+     * maximum size is lowered to the limit. Beyond the limit,
+     * `Memory.grow` fails, and a `memory.grow` instruction returns -1
+     * to the guest, as for any memory at its maximum size. The
+     * instantiation fails if a memory needs more pages initially.
+     *
+     * @param pages The maximum number of pages. 1 page size is 64KiB.
+     * @return These limits.
+     */
+    public ResourceLimits maximumMemoryPages(int pages) {
+        this.maximumMemoryPages = pages;
+
+        return this;
+    }
+
+    /**
+     * Limit the size of each table of the instance: its maximum size
+     * is lowered to the limit. The instantiation fails if a table
+     * needs more elements initially.
+     *
+     * @param elements The maximum number of elements.
+     * @return These limits.
+     */
+    public ResourceLimits maximumTableElements(int elements) {
+        this.maximumTableElements = elements;
+
+        return this;
+    }
+
+    /**
+     * Grow each linear memory to at least `pages` when instantiating,
+     * and touch all its pages, so that the hot paths do not hit page
+     * faults later.
+     *
+     * @param pages The number of pages to reserve. 1 page size is 64KiB.
+     * @return These limits.
+     */
+    public ResourceLimits preallocateMemoryPages(int pages) {
+        this.preallocatedMemoryPages = pages;
+
+        return this;
+    }
+
+    /**
+     * Set the callback deciding whether a memory of the instance is
+     * allowed to grow. It is called on the thread growing the memory,
+     * both for `Memory.grow` and for a `memory.grow` instruction run
+     * by the guest. A denied growth makes `Memory.grow` fail, and the
+     * instruction return -1 to the guest. A callback throwing an
+     * exception denies the growth.
+     *
+     * @param callback The callback.
+     * @return These limits.
+     */
+    public ResourceLimits onMemoryGrowth(MemoryGrowthCallback callback) {
+        this.memoryGrowthCallback = callback;
+
+        return this;
+    }
+}
@@ -0,0 +1,586 @@
+package org.wasmer;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * `Scheduler` runs tasks for many tenants, each tenant being a
+ * WebAssembly module, on a fixed set of worker threads.
+ *
+ * The scheduler works as follows:
+ *
+ *   * Each worker keeps a warm instance per tenant it has run tasks
+ *     for. An instance is pinned to its worker: it is created, used
+ *     and closed by the worker thread only.
+ *   * A task is queued to the home worker of its tenant, so that it
+ *     usually finds a warm instance. An idle worker steals tasks from
+ *     the busiest worker, and runs them on its own instance of the
+ *     tenant.
+ *   * The size of the memories of the warm instances, exported or
+ *     not, is kept under a global budget: when it is exceeded, the
+ *     least recently used instances are evicted. An instance running
+ *     a task is never evicted. An instance larger than the whole
+ *     budget is not kept: its task fails, see `submit`.
+ *
+ * Example:
+ * <pre>{@code
+ * Scheduler scheduler = new Scheduler(4, 512L * 1024 * 1024);
+ * scheduler.register("tenant-a", new Module(wasmBytesA));
+ * scheduler.register("tenant-b", new Module(wasmBytesB));
+ *
+ * CompletableFuture<Object[]> results = scheduler.submit(
+ *     "tenant-a",
+ *     instance -> instance.exports.getFunction("sum").apply(1, 2)
+ * );
+ *
+ * System.out.println(scheduler.metrics());
+ * scheduler.close();
+ * }</pre>
+ */
+public class Scheduler implements AutoCloseable {
+    /**
+     * The time an idle worker waits before looking for a task to
+     * steal again.
+     */
+    private static final long IDLE_PARK_NANOS = 1000000L;
+
+    private final Worker[] workers;
+    private final long memoryBudget;
+    private final long startTime;
+    private final Map<String, Tenant> tenants;
+    private final AtomicInteger nextHome;
+    private final Set<WarmInstance> warmInstances;
+    private final AtomicLong memoryUsage;
+    private final AtomicLong completedTasks;
+    private final AtomicLong stolenTasks;
+    private final AtomicLong instantiations;
+    private final AtomicLong evictions;
+    private volatile boolean running;
+
+    /**
+     * The constructor starts a scheduler with one worker per
+     * processor, and no memory budget.
+     */
+    public Scheduler() {
+        this(Runtime.getRuntime().availableProcessors(), Long.MAX_VALUE);
+    }
+
+    /**
+     * The constructor starts a scheduler.
+     *
+     * @param workers Number of worker threads.
+     * @param memoryBudget Maximum size of the memories defined by all the warm instances, in bytes.
+     */
+    public Scheduler(int workers, long memoryBudget) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("A scheduler needs at least one worker, given " + workers);
+        }
+
+        this.memoryBudget = memoryBudget;
+        this.startTime = System.nanoTime();
+        this.tenants = new ConcurrentHashMap<String, Tenant>();
+        this.nextHome = new AtomicInteger();
+        this.warmInstances = ConcurrentHashMap.newKeySet();
+        this.memoryUsage = new AtomicLong();
+        this.completedTasks = new AtomicLong();
+        this.stolenTasks = new AtomicLong();
+        this.instantiations = new AtomicLong();
+        this.evictions = new AtomicLong();
+        this.running = true;
+        this.workers = new Worker[workers];
+
+        for (int index = 0; index < workers; ++index) {
+            this.workers[index] = new Worker(index);
+        }
+
+        for (Worker worker : this.workers) {
+            worker.thread.start();
+        }
+    }
+
+    /**
+     * Register a tenant.
+     *
+     * @param tenant Name of the tenant.
+     * @param module Module instantiated for the tenant.
+     */
+    public void register(String tenant, Module module) {
+        this.register(tenant, module, null, null);
+    }
+
+    /**
+     * Register a tenant, instantiated with a set of imports and
+     * resource limits.
+     *
+     * @param tenant Name of the tenant.
+     * @param module Module instantiated for the tenant.
+     * @param imports Imports, or `null` if the module has no import.
+     * @param limits Resource limits, or `null` if the instances are not limited.
+     */
+    public void register(String tenant, Module module, Imports imports, ResourceLimits limits) {
+        // Home workers are assigned in a round-robin fashion.
+        int home = Math.floorMod(this.nextHome.getAndIncrement(), this.workers.length);
+
+        if (this.tenants.putIfAbsent(tenant, new Tenant(module, imports, limits, home)) != null) {
+            throw new IllegalArgumentException("The tenant `" + tenant + "` is already registered");
+        }
+    }
+
+    /**
+     * Create the instance of a tenant on its home worker ahead of the
+     * first task.
+     *
+     * @param tenant Name of the tenant.
+     * @return A future completed when the instance is warm.
+     */
+    public CompletableFuture<Void> prewarm(String tenant) {
+        return this.submit(tenant, instance -> null);
+    }
+
+    /**
+     * Submit a task for a tenant.
+     *
+     * If a new instance of the tenant does not fit in the memory
+     * budget on its own, the task fails with an
+     * `IllegalStateException` rather than evicting all the other
+     * instances. If the task throws an `Error`, its future fails with
+     * it, and the instance is evicted rather than reused.
+     *
+     * @param tenant Name of the tenant.
+     * @param task Task, run with an instance of the tenant.
+     * @return A future completed with the result of the task.
+     */
+    public <R> CompletableFuture<R> submit(String tenant, SchedulerTask<R> task) {
+        if (!this.running) {
+            throw new RejectedExecutionException("The scheduler is closed");
+        }
+
+        Tenant registeredTenant = this.tenants.get(tenant);
+
+        if (registeredTenant == null) {
+            throw new IllegalArgumentException("The tenant `" + tenant + "` is not registered");
+        }
+
+        Job<R> job = new Job<R>(registeredTenant, task);
+        Worker home = this.workers[registeredTenant.home];
+        home.push(job);
+
+        // The scheduler may have been closed meanwhile.
+        if (!this.running && home.jobs.remove(job)) {
+            home.depth.decrementAndGet();
+            job.future.completeExceptionally(new RejectedExecutionException("The scheduler is closed"));
+        }
+
+        // Wake an idle worker up to steal the task if the home worker is busy.
+        if (home.busy) {
+            for (Worker worker : this.workers) {
+                if (worker != home && !worker.busy) {
+                    LockSupport.unpark(worker.thread);
+
+                    break;
+                }
+            }
+        }
+
+        return job.future;
+    }
+
+    /**
+     * Return a snapshot of the metrics of the scheduler.
+     *
+     * @return The metrics.
+     */
+    public SchedulerMetrics metrics() {
+        int[] queueDepths = new int[this.workers.length];
+        double[] utilizations = new double[this.workers.length];
+        long elapsed = Math.max(1L, System.nanoTime() - this.startTime);
+
+        for (int index = 0; index < this.workers.length; ++index) {
+            queueDepths[index] = this.workers[index].depth.get();
+            utilizations[index] = Math.min(1.0, (double) this.workers[index].busyNanos / elapsed);
+        }
+
+        return new SchedulerMetrics(
+            queueDepths,
+            utilizations,
+            this.warmInstances.size(),
+            this.memoryUsage.get(),
+            this.memoryBudget,
+            this.completedTasks.get(),
+            this.stolenTasks.get(),
+            this.instantiations.get(),
+            this.evictions.get()
+        );
+    }
+
+    /**
+     * Stop the workers, and close the warm instances. The tasks not
+     * run yet are cancelled.
+     */
+    public void close() {
+        this.running = false;
+
+        for (Worker worker : this.workers) {
+            LockSupport.unpark(worker.thread);
+        }
+
+        for (Worker worker : this.workers) {
+            try {
+                worker.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        for (Worker worker : this.workers) {
+            worker.cancelJobs();
+        }
+    }
+
+    /**
+     * Evict the least recently used warm instances, until the memory
+     * usage fits in the budget.
+     */
+    private void enforceMemoryBudget() {
+        while (this.memoryUsage.get() > this.memoryBudget) {
+            WarmInstance coldest = null;
+
+            for (WarmInstance candidate : this.warmInstances) {
+                if (!candidate.inUse && (coldest == null || candidate.lastUsed - coldest.lastUsed < 0)) {
+                    coldest = candidate;
+                }
+            }
+
+            if (coldest == null) {
+                return;
+            }
+
+            this.evict(coldest);
+        }
+    }
+
+    /**
+     * Mark a warm instance as evicted, and release its memory from the
+     * budget.
+     *
+     * @return false if the instance was already evicted.
+     */
+    private boolean release(WarmInstance warmInstance) {
+        synchronized (warmInstance) {
+            this.warmInstances.remove(warmInstance);
+
+            if (warmInstance.evicted) {
+                return false;
+            }
+
+            warmInstance.evicted = true;
+            this.memoryUsage.addAndGet(-warmInstance.memorySize);
+
+            return true;
+        }
+    }
+
+    /**
+     * Evict a warm instance. It is closed by its worker.
+     */
+    private void evict(WarmInstance warmInstance) {
+        if (!this.release(warmInstance)) {
+            return;
+        }
+
+        this.evictions.incrementAndGet();
+        warmInstance.owner.evictedInstances.add(warmInstance);
+        LockSupport.unpark(warmInstance.owner.thread);
+    }
+
+    private static final class Tenant {
+        final Module module;
+        final Imports imports;
+        final ResourceLimits limits;
+        final int home;
+
+        Tenant(Module module, Imports imports, ResourceLimits limits, int home) {
+            this.module = module;
+            this.imports = imports;
+            this.limits = limits;
+            this.home = home;
+        }
+    }
+
+    private static final class Job<R> {
+        final Tenant tenant;
+        final SchedulerTask<R> task;
+        final CompletableFuture<R> future;
+        R result;
+        Throwable failure;
+
+        Job(Tenant tenant, SchedulerTask<R> task) {
+            this.tenant = tenant;
+            this.task = task;
+            this.future = new CompletableFuture<R>();
+        }
+
+        void run(Instance instance) {
+            try {
+                this.result = this.task.run(instance);
+            } catch (Throwable e) {
+                // An error fails the task, not the worker.
+                this.failure = e;
+            }
+        }
+
+        /**
+         * Complete the future once the scheduler has accounted for the
+         * task, so that the metrics are up to date when it completes.
+         */
+        void complete() {
+            if (this.failure != null) {
+                this.future.completeExceptionally(this.failure);
+            } else {
+                this.future.complete(this.result);
+            }
+        }
+    }
+
+    /**
+     * An instance of a tenant, pinned to a worker.
+     */
+    private static final class WarmInstance {
+        final Tenant tenant;
+        final Instance instance;
+        final Worker owner;
+        volatile long lastUsed;
+        volatile boolean inUse;
+        // Written while holding the lock of the warm instance.
+        long memorySize;
+        volatile boolean evicted;
+
+        WarmInstance(Tenant tenant, Instance instance, Worker owner, long memorySize) {
+            this.tenant = tenant;
+            this.instance = instance;
+            this.owner = owner;
+            this.lastUsed = System.nanoTime();
+            this.memorySize = memorySize;
+        }
+    }
+
+    private final class Worker implements Runnable {
+        final Thread thread;
+        final ConcurrentLinkedDeque<Job<?>> jobs;
+        final AtomicInteger depth;
+        final ConcurrentLinkedQueue<WarmInstance> evictedInstances;
+        // Accessed by the worker thread only.
+        final Map<Tenant, WarmInstance> instances;
+        volatile boolean busy;
+        volatile long busyNanos;
+
+        Worker(int index) {
+            this.thread = new Thread(this, "wasmer-scheduler-" + index);
+            this.thread.setDaemon(true);
+            this.jobs = new ConcurrentLinkedDeque<Job<?>>();
+            this.depth = new AtomicInteger();
+            this.evictedInstances = new ConcurrentLinkedQueue<WarmInstance>();
+            this.instances = new HashMap<Tenant, WarmInstance>();
+        }
+
+        void push(Job<?> job) {
+            this.depth.incrementAndGet();
+            this.jobs.offerLast(job);
+            LockSupport.unpark(this.thread);
+        }
+
+        /**
+         * The worker takes its own jobs from the head of its queue,
+         * while thieves take them from the tail.
+         */
+        Job<?> poll(boolean steal) {
+            Job<?> job = steal ? this.jobs.pollLast() : this.jobs.pollFirst();
+
+            if (job != null) {
+                this.depth.decrementAndGet();
+            }
+
+            return job;
+        }
+
+        /**
+         * Steal a job from the busiest worker.
+         */
+        Job<?> steal() {
+            Worker victim = null;
+
+            for (Worker worker : Scheduler.this.workers) {
+                if (worker != this && worker.busy && worker.depth.get() > 0 && (victim == null || worker.depth.get() > victim.depth.get())) {
+                    victim = worker;
+                }
+            }
+
+            return victim == null ? null : victim.poll(true);
+        }
+
+        @Override
+        public void run() {
+            while (Scheduler.this.running) {
+                this.closeEvictedInstances();
+
+                Job<?> job = this.poll(false);
+
+                if (job == null) {
+                    job = this.steal();
+
+                    if (job != null) {
+                        Scheduler.this.stolenTasks.incrementAndGet();
+                    }
+                }
+
+                if (job == null) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                this.busy = true;
+
+                try {
+                    this.execute(job);
+                } catch (Throwable failure) {
+                    // Keep the worker alive, otherwise its queued jobs
+                    // and its warm instances would be orphaned.
+                    job.future.completeExceptionally(failure);
+                } finally {
+                    this.busy = false;
+                    this.busyNanos += System.nanoTime() - start;
+                }
+            }
+
+            this.cancelJobs();
+
+            for (WarmInstance warmInstance : this.instances.values()) {
+                Scheduler.this.release(warmInstance);
+                warmInstance.instance.close();
+            }
+
+            this.instances.clear();
+            this.evictedInstances.clear();
+        }
+
+        void execute(Job<?> job) {
+            WarmInstance warmInstance = this.instances.get(job.tenant);
+
+            if (warmInstance != null && warmInstance.evicted) {
+                this.instances.remove(job.tenant);
+                warmInstance.instance.close();
+                warmInstance = null;
+            }
+
+            if (warmInstance == null) {
+                Instance instance;
+
+                try {
+                    instance = job.tenant.module.instantiate(job.tenant.imports, job.tenant.limits);
+                } catch (Throwable e) {
+                    job.future.completeExceptionally(e);
+                    Scheduler.this.completedTasks.incrementAndGet();
+
+                    return;
+                }
+
+                // Such an instance would evict all the others, and
+                // itself after each task.
+                long memorySize = instance.memorySize();
+
+                if (memorySize > Scheduler.this.memoryBudget) {
+                    instance.close();
+                    job.future.completeExceptionally(new IllegalStateException(
+                        "An instance uses " + memorySize + " bytes of memory, more than the memory budget of " + Scheduler.this.memoryBudget + " bytes"
+                    ));
+                    Scheduler.this.completedTasks.incrementAndGet();
+
+                    return;
+                }
+
+                // The instance is charged to the budget as soon as it
+                // exists, and is in use until its first task ends.
+                warmInstance = new WarmInstance(job.tenant, instance, this, memorySize);
+                warmInstance.inUse = true;
+                this.instances.put(job.tenant, warmInstance);
+                Scheduler.this.memoryUsage.addAndGet(memorySize);
+                Scheduler.this.warmInstances.add(warmInstance);
+                Scheduler.this.instantiations.incrementAndGet();
+            }
+
+            warmInstance.inUse = true;
+            warmInstance.lastUsed = System.nanoTime();
+
+            // Make room for the instance before running the task.
+            Scheduler.this.enforceMemoryBudget();
+
+            job.run(warmInstance.instance);
+            warmInstance.inUse = false;
+            Scheduler.this.completedTasks.incrementAndGet();
+
+            try {
+                // An error, e.g. a `StackOverflowError` thrown by a
+                // host function, may leave the instance in an
+                // inconsistent state: it is not reused.
+                if (job.failure instanceof Error) {
+                    Scheduler.this.evict(warmInstance);
+                }
+
+                // The memories may have grown during the task.
+                long memorySize = warmInstance.instance.memorySize();
+
+                synchronized (warmInstance) {
+                    if (!warmInstance.evicted) {
+                        Scheduler.this.memoryUsage.addAndGet(memorySize - warmInstance.memorySize);
+                        warmInstance.memorySize = memorySize;
+                    }
+                }
+
+                // An instance that has grown beyond the whole budget
+                // is evicted rather than the other ones.
+                if (memorySize > Scheduler.this.memoryBudget) {
+                    Scheduler.this.evict(warmInstance);
+                }
+
+                Scheduler.this.enforceMemoryBudget();
+            } finally {
+                job.complete();
+            }
+        }
+
+        /**
+         * Close the instances of this worker evicted by any worker.
+         */
+        void closeEvictedInstances() {
+            WarmInstance warmInstance;
+
+            while ((warmInstance = this.evictedInstances.poll()) != null) {
+                if (this.instances.get(warmInstance.tenant) == warmInstance) {
+                    this.instances.remove(warmInstance.tenant);
+                }
+
+                warmInstance.instance.close();
+            }
+        }
+
+        void cancelJobs() {
+            Job<?> job;
+
+            while ((job = this.poll(false)) != null) {
+                job.future.completeExceptionally(new CancellationException("The scheduler is closed"));
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.wasmer;
+
+/**
+ * `SchedulerMetrics` is a snapshot of the state of a `Scheduler`,
+ * returned by `Scheduler.metrics`.
+ */
+public final class SchedulerMetrics {
+    private final int[] queueDepths;
+    private final double[] utilizations;
+    private final int warmInstances;
+    private final long memoryUsage;
+    private final long memoryBudget;
+    private final long completedTasks;
+    private final long stolenTasks;
+    private final long instantiations;
+    private final long evictions;
+
+    SchedulerMetrics(
+        int[] queueDepths,
+        double[] utilizations,
+        int warmInstances,
+        long memoryUsage,
+        long memoryBudget,
+        long completedTasks,
+        long stolenTasks,
+        long instantiations,
+        long evictions
+    ) {
+        this.queueDepths = queueDepths;
+        this.utilizations = utilizations;
+        this.warmInstances = warmInstances;
+        this.memoryUsage = memoryUsage;
+        this.memoryBudget = memoryBudget;
+        this.completedTasks = completedTasks;
+        this.stolenTasks = stolenTasks;
+        this.instantiations = instantiations;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Return the number of tasks waiting in the queue of each worker.
+     */
+    public int[] getQueueDepths() {
+        return this.queueDepths.clone();
+    }
+
+    /**
+     * Return the number of tasks waiting in all the queues.
+     */
+    public int getQueueDepth() {
+        int queueDepth = 0;
+
+        for (int depth : this.queueDepths) {
+            queueDepth += depth;
+        }
+
+        return queueDepth;
+    }
+
+    /**
+     * Return the utilization of each worker, i.e. the ratio of time
+     * spent running tasks since the scheduler has started, from 0 to 1.
+     */
+    public double[] getUtilizations() {
+        return this.utilizations.clone();
+    }
+
+    /**
+     * Return the average utilization of the workers, from 0 to 1.
+     */
+    public double getUtilization() {
+        double utilization = 0.0;
+
+        for (double workerUtilization : this.utilizations) {
+            utilization += workerUtilization;
+        }
+
+        return this.utilizations.length == 0 ? 0.0 : utilization / this.utilizations.length;
+    }
+
+    /**
+     * Return the number of warm instances, all workers included.
+     */
+    public int getWarmInstances() {
+        return this.warmInstances;
+    }
+
+    /**
+     * Return the size of the memories defined by the warm instances,
+     * exported or not, in bytes.
+     */
+    public long getMemoryUsage() {
+        return this.memoryUsage;
+    }
+
+    /**
+     * Return the memory budget of the scheduler, in bytes.
+     */
+    public long getMemoryBudget() {
+        return this.memoryBudget;
+    }
+
+    /**
+     * Return the number of tasks run so far, failed ones included.
+     */
+    public long getCompletedTasks() {
+        return this.completedTasks;
+    }
+
+    /**
+     * Return the number of tasks stolen by a worker from the queue of
+     * another worker.
+     */
+    public long getStolenTasks() {
+        return this.stolenTasks;
+    }
+
+    /**
+     * Return the number of instances created so far.
+     */
+    public long getInstantiations() {
+        return this.instantiations;
+    }
+
+    /**
+     * Return the number of warm instances evicted to fit in the
+     * memory budget.
+     */
+    public long getEvictions() {
+        return this.evictions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "queue depth %d, utilization %.2f, %d warm instances, memory %d/%d bytes, %d completed, %d stolen, %d instantiations, %d evictions",
+            this.getQueueDepth(),
+            this.getUtilization(),
+            this.warmInstances,
+            this.memoryUsage,
+            this.memoryBudget,
+            this.completedTasks,
+            this.stolenTasks,
+            this.instantiations,
+            this.evictions
+        );
+    }
+}
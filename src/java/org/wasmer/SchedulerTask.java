@@ -0,0 +1,11 @@
+package org.wasmer;
+
+/**
+ * Functional interface for the tasks run by a `Scheduler`. A task
+ * receives the warm instance of its tenant, which must not escape the
+ * task: the instance is pinned to the worker thread running it.
+ */
+@FunctionalInterface
+public interface SchedulerTask<R> {
+    R run(Instance instance) throws Exception;
+}
@@ -0,0 +1,70 @@
+package org.wasmer;
+
+/**
+ * `TrapCode` represents the reason why a WebAssembly function has
+ * trapped, see `WasmTrap`.
+ */
+public enum TrapCode {
+    /**
+     * An `unreachable` instruction has been executed.
+     */
+    UNREACHABLE("unreachable instruction executed"),
+
+    /**
+     * A memory has been accessed out of its bounds.
+     */
+    MEMORY_OUT_OF_BOUNDS("out of bounds memory access"),
+
+    /**
+     * A table has been accessed out of its bounds, e.g. by
+     * `call_indirect`.
+     */
+    TABLE_OUT_OF_BOUNDS("out of bounds table access"),
+
+    /**
+     * The signature of a function called by `call_indirect` does not
+     * match the expected signature.
+     */
+    INDIRECT_CALL_SIGNATURE_MISMATCH("indirect call signature mismatch"),
+
+    /**
+     * An integer has been divided by zero, or an integer overflow
+     * has occurred, e.g. when converting a float.
+     */
+    ILLEGAL_ARITHMETIC("illegal arithmetic operation"),
+
+    /**
+     * An atomic instruction has accessed a misaligned address.
+     */
+    MISALIGNED_ATOMIC_ACCESS("misaligned atomic access"),
+
+    /**
+     * The call stack is exhausted, e.g. by an infinite recursion.
+     */
+    STACK_OVERFLOW("call stack exhausted"),
+
+    /**
+     * The execution has run out of fuel, i.e. the metering limit has
+     * been reached. The current runtime does not meter the execution,
+     * so this code is reserved.
+     */
+    FUEL_EXHAUSTED("fuel exhausted"),
+
+    /**
+     * Any other trap.
+     */
+    UNKNOWN("unknown trap");
+
+    private final String message;
+
+    TrapCode(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Return the description of the trap.
+     */
+    public String getMessage() {
+        return this.message;
+    }
+}
@@ -0,0 +1,180 @@
+package org.wasmer;
+
+/**
+ * `V128` is a Java class that represents a WebAssembly `v128` value,
+ * as used by the SIMD proposal (see `Features.simd`). It can be
+ * passed to, and returned by, an exported function.
+ *
+ * The value is stored as two little-endian halves: `low` holds the
+ * bytes 0 to 7, `high` holds the bytes 8 to 15.
+ *
+ * Example:
+ * <pre>{@code
+ * V128 vector = V128.fromInts(1, 2, 3, 4);
+ * V128 result = (V128) instance.exports.getFunction("i32x4_add").apply(vector, vector)[0];
+ * result.getInt(3); // 8
+ * }</pre>
+ */
+public final class V128 {
+    private final long low;
+    private final long high;
+
+    /**
+     * The constructor instantiates a `v128` value from its two halves.
+     *
+     * @param low The bytes 0 to 7.
+     * @param high The bytes 8 to 15.
+     */
+    public V128(long low, long high) {
+        this.low = low;
+        this.high = high;
+    }
+
+    /**
+     * Create a `v128` value from 16 bytes.
+     *
+     * @param bytes The 16 bytes, in little-endian order.
+     * @return The `v128` value.
+     */
+    public static V128 fromBytes(byte[] bytes) {
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("A `v128` value has 16 bytes, given " + bytes.length);
+        }
+
+        long low = 0L;
+        long high = 0L;
+
+        for (int nth = 7; nth >= 0; --nth) {
+            low = (low << 8) | (bytes[nth] & 0xffL);
+            high = (high << 8) | (bytes[nth + 8] & 0xffL);
+        }
+
+        return new V128(low, high);
+    }
+
+    /**
+     * Create a `v128` value from 4 `i32` lanes.
+     *
+     * @param lane0 The lane 0, i.e. the bytes 0 to 3.
+     * @param lane1 The lane 1.
+     * @param lane2 The lane 2.
+     * @param lane3 The lane 3.
+     * @return The `v128` value.
+     */
+    public static V128 fromInts(int lane0, int lane1, int lane2, int lane3) {
+        return new V128(
+            (lane0 & 0xffffffffL) | ((long) lane1 << 32),
+            (lane2 & 0xffffffffL) | ((long) lane3 << 32)
+        );
+    }
+
+    /**
+     * Create a `v128` value from 2 `i64` lanes.
+     *
+     * @param lane0 The lane 0, i.e. the bytes 0 to 7.
+     * @param lane1 The lane 1.
+     * @return The `v128` value.
+     */
+    public static V128 fromLongs(long lane0, long lane1) {
+        return new V128(lane0, lane1);
+    }
+
+    /**
+     * Return the low half of the value, i.e. the bytes 0 to 7, the
+     * byte 0 being the least significant one.
+     *
+     * @return The low half.
+     */
+    public long getLow() {
+        return this.low;
+    }
+
+    /**
+     * Return the high half of the value, i.e. the bytes 8 to 15, the
+     * byte 8 being the least significant one.
+     *
+     * @return The high half.
+     */
+    public long getHigh() {
+        return this.high;
+    }
+
+    /**
+     * Return the 16 bytes of the value, in little-endian order.
+     */
+    public byte[] toBytes() {
+        byte[] bytes = new byte[16];
+
+        for (int nth = 0; nth < 8; ++nth) {
+            bytes[nth] = (byte) (this.low >>> (nth * 8));
+            bytes[nth + 8] = (byte) (this.high >>> (nth * 8));
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Read an `i32` lane.
+     *
+     * @param lane The lane, from 0 to 3.
+     */
+    public int getInt(int lane) {
+        if (lane < 0 || lane > 3) {
+            throw new IndexOutOfBoundsException("A `v128` value has 4 `i32` lanes, given lane " + lane);
+        }
+
+        return (int) ((lane < 2 ? this.low : this.high) >>> ((lane % 2) * 32));
+    }
+
+    /**
+     * Read an `i64` lane.
+     *
+     * @param lane The lane, 0 or 1.
+     */
+    public long getLong(int lane) {
+        if (lane < 0 || lane > 1) {
+            throw new IndexOutOfBoundsException("A `v128` value has 2 `i64` lanes, given lane " + lane);
+        }
+
+        return lane == 0 ? this.low : this.high;
+    }
+
+    /**
+     * Read an `f32` lane.
+     *
+     * @param lane The lane, from 0 to 3.
+     */
+    public float getFloat(int lane) {
+        return Float.intBitsToFloat(this.getInt(lane));
+    }
+
+    /**
+     * Read an `f64` lane.
+     *
+     * @param lane The lane, 0 or 1.
+     */
+    public double getDouble(int lane) {
+        return Double.longBitsToDouble(this.getLong(lane));
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof V128)) {
+            return false;
+        }
+
+        V128 vector = (V128) other;
+
+        return this.low == vector.low && this.high == vector.high;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(this.low) + Long.hashCode(this.high);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("V128(0x%016x%016x)", this.high, this.low);
+    }
+}
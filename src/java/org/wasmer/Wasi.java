@@ -0,0 +1,177 @@
+package org.wasmer;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * `Wasi` is a Java class that represents the WASI environment given
+ * to a WebAssembly instance.
+ *
+ * The standard streams of the guest are bridged to Java NIO
+ * channels through direct byte buffers, so that no copy is made on
+ * the Java heap. Data read by the guest goes straight into the
+ * WebAssembly memory. Data written by the guest is first copied by
+ * the WASI implementation into a native buffer, once per buffer
+ * written.
+ *
+ * Example:
+ * <pre>{@code
+ * Wasi wasi = new Wasi("program")
+ *     .argument("--verbose")
+ *     .environment("KEY", "value")
+ *     .preopenDirectory("/tmp")
+ *     .stdin(Channels.newChannel(System.in))
+ *     .stdout(Channels.newChannel(System.out));
+ *
+ * Instance instance = new Instance(wasmBytes, wasi);
+ * instance.exports.getFunction("_start").apply();
+ * }</pre>
+ */
+public class Wasi {
+    private String programName;
+    private List<String> arguments;
+    private Map<String, String> environment;
+    private Map<String, String> preopenedDirectories;
+
+    /**
+     * The channels backing the guest standard streams. A `null`
+     * channel means the host standard stream is used.
+     */
+    private ReadableByteChannel stdin;
+    private WritableByteChannel stdout;
+    private WritableByteChannel stderr;
+
+    /**
+     * The constructor instantiates a new WASI environment.
+     *
+     * @param programName Name of the program, i.e. the first argument seen by the guest.
+     */
+    public Wasi(String programName) {
+        this.programName = programName;
+        this.arguments = new ArrayList<String>();
+        this.environment = new LinkedHashMap<String, String>();
+        this.preopenedDirectories = new LinkedHashMap<String, String>();
+    }
+
+    /**
+     * Add an argument to the program.
+     *
+     * @param argument Argument.
+     * @return This WASI environment.
+     */
+    public Wasi argument(String argument) {
+        this.arguments.add(argument);
+
+        return this;
+    }
+
+    /**
+     * Add an environment variable to the program.
+     *
+     * @param key Name of the variable.
+     * @param value Value of the variable.
+     * @return This WASI environment.
+     */
+    public Wasi environment(String key, String value) {
+        this.environment.put(key, value);
+
+        return this;
+    }
+
+    /**
+     * Give the guest access to a host directory, under the same path.
+     *
+     * @param hostPath Path of the directory on the host.
+     * @return This WASI environment.
+     */
+    public Wasi preopenDirectory(String hostPath) {
+        return this.mapDirectory(hostPath, hostPath);
+    }
+
+    /**
+     * Give the guest access to a host directory, under another path.
+     *
+     * @param alias Path of the directory seen by the guest.
+     * @param hostPath Path of the directory on the host.
+     * @return This WASI environment.
+     */
+    public Wasi mapDirectory(String alias, String hostPath) {
+        this.preopenedDirectories.put(alias, hostPath);
+
+        return this;
+    }
+
+    /**
+     * Set the channel the guest standard input reads from.
+     *
+     * @param channel Readable channel.
+     * @return This WASI environment.
+     */
+    public Wasi stdin(ReadableByteChannel channel) {
+        this.stdin = channel;
+
+        return this;
+    }
+
+    /**
+     * Set the channel the guest standard output writes to.
+     *
+     * @param channel Writable channel.
+     * @return This WASI environment.
+     */
+    public Wasi stdout(WritableByteChannel channel) {
+        this.stdout = channel;
+
+        return this;
+    }
+
+    /**
+     * Set the channel the guest standard error writes to.
+     *
+     * @param channel Writable channel.
+     * @return This WASI environment.
+     */
+    public Wasi stderr(WritableByteChannel channel) {
+        this.stderr = channel;
+
+        return this;
+    }
+
+    /**
+     * Called by Rust to read the program arguments.
+     */
+    private String[] getArguments() {
+        return this.arguments.toArray(new String[0]);
+    }
+
+    /**
+     * Called by Rust to read the environment variables, as `KEY=value` strings.
+     */
+    private String[] getEnvironment() {
+        List<String> environment = new ArrayList<String>();
+
+        for (Map.Entry<String, String> entry : this.environment.entrySet()) {
+            environment.add(entry.getKey() + "=" + entry.getValue());
+        }
+
+        return environment.toArray(new String[0]);
+    }
+
+    /**
+     * Called by Rust to read the aliases of the preopened directories.
+     */
+    private String[] getPreopenedAliases() {
+        return this.preopenedDirectories.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * Called by Rust to read the host paths of the preopened directories.
+     */
+    private String[] getPreopenedPaths() {
+        return this.preopenedDirectories.values().toArray(new String[0]);
+    }
+}
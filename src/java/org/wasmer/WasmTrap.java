@@ -0,0 +1,74 @@
+package org.wasmer;
+
+/**
+ * `WasmTrap` is the exception thrown when a WebAssembly function
+ * traps, e.g. when it executes `unreachable` or accesses a memory out
+ * of its bounds. Its code tells the reason of the trap.
+ *
+ * Traps are meant to be cheap, so that guests trapping as part of
+ * their normal control flow do not slow the host down: by default, a
+ * trap has no stack trace, and the traps without a specific message
+ * are preallocated, i.e. the same `WasmTrap` object is thrown for all
+ * the traps of a given code. Set the `wasmer.trap.stackTraces` system
+ * property to `true` to get a new trap with a stack trace every time,
+ * e.g. when debugging.
+ *
+ * Example:
+ * <pre>{@code
+ * try {
+ *     instance.exports.getFunction("validate").apply(pointer);
+ * } catch (WasmTrap trap) {
+ *     if (trap.getCode() == TrapCode.UNREACHABLE) {
+ *         // The input is invalid.
+ *     }
+ * }
+ * }</pre>
+ */
+public class WasmTrap extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private static final boolean STACK_TRACES = Boolean.getBoolean("wasmer.trap.stackTraces");
+
+    private static final TrapCode[] TRAP_CODES = TrapCode.values();
+    private static final WasmTrap[] PREALLOCATED_TRAPS = new WasmTrap[TRAP_CODES.length];
+
+    static {
+        for (TrapCode code : TRAP_CODES) {
+            PREALLOCATED_TRAPS[code.ordinal()] = new WasmTrap(code, code.getMessage(), false);
+        }
+    }
+
+    private final TrapCode code;
+
+    private WasmTrap(TrapCode code, String message, boolean stackTrace) {
+        // Suppressed exceptions are disabled too, so that a
+        // preallocated trap cannot be modified.
+        super(message, null, false, stackTrace);
+        this.code = code;
+    }
+
+    /**
+     * Return the reason of the trap.
+     */
+    public TrapCode getCode() {
+        return this.code;
+    }
+
+    /**
+     * Called by Rust to get the trap to throw for a given code, i.e.
+     * the ordinal of a `TrapCode`, with an optional message.
+     */
+    private static WasmTrap create(int code, String message) {
+        TrapCode trapCode = TRAP_CODES[code];
+
+        if (STACK_TRACES) {
+            return new WasmTrap(trapCode, message != null ? message : trapCode.getMessage(), true);
+        }
+
+        if (message != null) {
+            return new WasmTrap(trapCode, message, false);
+        }
+
+        return PREALLOCATED_TRAPS[code];
+    }
+}
@@ -0,0 +1,34 @@
+package org.wasmer.types;
+
+/**
+ * `ExportDescriptor` describes an export of a WebAssembly module: its
+ * name and its type.
+ */
+public final class ExportDescriptor {
+    private final String name;
+    private final ExternType type;
+
+    ExportDescriptor(String name, ExternType type) {
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Return the name of the export.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Return the type of the export.
+     */
+    public ExternType getType() {
+        return this.type;
+    }
+
+    @Override
+    public String toString() {
+        return this.name + ": " + this.type;
+    }
+}
@@ -0,0 +1,11 @@
+package org.wasmer.types;
+
+/**
+ * `ExternKind` represents the kind of an import or of an export.
+ */
+public enum ExternKind {
+    FUNCTION,
+    MEMORY,
+    TABLE,
+    GLOBAL
+}
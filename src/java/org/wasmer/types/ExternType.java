@@ -0,0 +1,14 @@
+package org.wasmer.types;
+
+/**
+ * `ExternType` represents the type of an import or of an export. It
+ * is one of `FunctionType`, `MemoryType`, `TableType` or `GlobalType`.
+ */
+public abstract class ExternType {
+    ExternType() {}
+
+    /**
+     * Return the kind of the import or of the export.
+     */
+    public abstract ExternKind getKind();
+}
@@ -0,0 +1,72 @@
+package org.wasmer.types;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * `FunctionType` represents the signature of a WebAssembly function.
+ *
+ * Example:
+ * <pre>{@code
+ * FunctionType type = (FunctionType) module.getDescriptor().getExport("sum").getType();
+ *
+ * if (type.accepts(arguments)) {
+ *     Object[] results = instance.exports.getFunction("sum").apply(arguments);
+ * }
+ * }</pre>
+ */
+public final class FunctionType extends ExternType {
+    private final List<ValueType> params;
+    private final List<ValueType> results;
+
+    FunctionType(ValueType[] params, ValueType[] results) {
+        this.params = Collections.unmodifiableList(Arrays.asList(params));
+        this.results = Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    @Override
+    public ExternKind getKind() {
+        return ExternKind.FUNCTION;
+    }
+
+    /**
+     * Return the types of the parameters.
+     */
+    public List<ValueType> getParams() {
+        return this.params;
+    }
+
+    /**
+     * Return the types of the results.
+     */
+    public List<ValueType> getResults() {
+        return this.results;
+    }
+
+    /**
+     * Check whether given arguments match the parameters, so that a
+     * call can be rejected before reaching WebAssembly.
+     *
+     * @param arguments The arguments of the call.
+     * @return true if, and only if, the arguments match the parameters.
+     */
+    public boolean accepts(Object... arguments) {
+        if (arguments.length != this.params.size()) {
+            return false;
+        }
+
+        for (int nth = 0; nth < arguments.length; ++nth) {
+            if (!this.params.get(nth).isInstance(arguments[nth])) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "func " + this.params + " -> " + this.results;
+    }
+}
@@ -0,0 +1,38 @@
+package org.wasmer.types;
+
+/**
+ * `GlobalType` represents the type of a WebAssembly global.
+ */
+public final class GlobalType extends ExternType {
+    private final ValueType valueType;
+    private final boolean mutable;
+
+    GlobalType(ValueType valueType, boolean mutable) {
+        this.valueType = valueType;
+        this.mutable = mutable;
+    }
+
+    @Override
+    public ExternKind getKind() {
+        return ExternKind.GLOBAL;
+    }
+
+    /**
+     * Return the type of the value of the global.
+     */
+    public ValueType getValueType() {
+        return this.valueType;
+    }
+
+    /**
+     * Check whether the global is mutable.
+     */
+    public boolean isMutable() {
+        return this.mutable;
+    }
+
+    @Override
+    public String toString() {
+        return "global " + (this.mutable ? "mut " : "") + this.valueType;
+    }
+}
@@ -0,0 +1,43 @@
+package org.wasmer.types;
+
+/**
+ * `ImportDescriptor` describes an import of a WebAssembly module: its
+ * namespace, its name, and its type.
+ */
+public final class ImportDescriptor {
+    private final String namespace;
+    private final String name;
+    private final ExternType type;
+
+    ImportDescriptor(String namespace, String name, ExternType type) {
+        this.namespace = namespace;
+        this.name = name;
+        this.type = type;
+    }
+
+    /**
+     * Return the namespace of the import, e.g. `env`.
+     */
+    public String getNamespace() {
+        return this.namespace;
+    }
+
+    /**
+     * Return the name of the import.
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Return the type of the import.
+     */
+    public ExternType getType() {
+        return this.type;
+    }
+
+    @Override
+    public String toString() {
+        return this.namespace + "." + this.name + ": " + this.type;
+    }
+}
@@ -0,0 +1,49 @@
+package org.wasmer.types;
+
+/**
+ * `MemoryType` represents the limits of a WebAssembly memory, in
+ * pages of 64 KiB.
+ */
+public final class MemoryType extends ExternType {
+    private final int minimumPages;
+    private final int maximumPages;
+    private final boolean shared;
+
+    MemoryType(int minimumPages, int maximumPages, boolean shared) {
+        this.minimumPages = minimumPages;
+        this.maximumPages = maximumPages;
+        this.shared = shared;
+    }
+
+    @Override
+    public ExternKind getKind() {
+        return ExternKind.MEMORY;
+    }
+
+    /**
+     * Return the initial number of pages.
+     */
+    public int getMinimumPages() {
+        return this.minimumPages;
+    }
+
+    /**
+     * Return the maximum number of pages, or -1 if the memory has no
+     * maximum.
+     */
+    public int getMaximumPages() {
+        return this.maximumPages;
+    }
+
+    /**
+     * Check whether the memory is shared, see `Memory.shared`.
+     */
+    public boolean isShared() {
+        return this.shared;
+    }
+
+    @Override
+    public String toString() {
+        return "memory " + this.minimumPages + (this.maximumPages < 0 ? "" : " " + this.maximumPages) + (this.shared ? " shared" : "");
+    }
+}
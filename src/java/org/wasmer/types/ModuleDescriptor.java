@@ -0,0 +1,111 @@
+package org.wasmer.types;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * `ModuleDescriptor` describes the imports and the exports of a
+ * WebAssembly module, with their types. It is computed once per
+ * module, and shared by all its instances.
+ *
+ * Example:
+ * <pre>{@code
+ * Module module = new Module(wasmBytes);
+ *
+ * for (ImportDescriptor descriptor : module.getDescriptor().getImports()) {
+ *     System.out.println(descriptor);
+ * }
+ *
+ * FunctionType sum = (FunctionType) module.getDescriptor().getExport("sum").getType();
+ * sum.getParams(); // [I32, I32]
+ * }</pre>
+ */
+public final class ModuleDescriptor {
+    private final List<ImportDescriptor> imports;
+    private final Map<String, ExportDescriptor> exports;
+
+    /**
+     * Called by Rust to instantiate an empty descriptor, then filled
+     * with the `add*` methods.
+     */
+    private ModuleDescriptor() {
+        this.imports = new ArrayList<ImportDescriptor>();
+        this.exports = new LinkedHashMap<String, ExportDescriptor>();
+    }
+
+    /**
+     * Return the imports of the module, in the order of its import
+     * section, whatever their kind.
+     */
+    public List<ImportDescriptor> getImports() {
+        return Collections.unmodifiableList(this.imports);
+    }
+
+    /**
+     * Return the exports of the module, in declaration order.
+     */
+    public List<ExportDescriptor> getExports() {
+        return Collections.unmodifiableList(new ArrayList<ExportDescriptor>(this.exports.values()));
+    }
+
+    /**
+     * Return the export with the name `name`, or `null` if it does
+     * not exist.
+     *
+     * @param name Name of the export.
+     */
+    public ExportDescriptor getExport(String name) {
+        return this.exports.get(name);
+    }
+
+    private void add(String namespace, String name, ExternType type) {
+        if (namespace == null) {
+            this.exports.put(name, new ExportDescriptor(name, type));
+        } else {
+            this.imports.add(new ImportDescriptor(namespace, name, type));
+        }
+    }
+
+    private static ValueType[] valueTypes(int[] types) {
+        ValueType[] valueTypes = new ValueType[types.length];
+
+        for (int nth = 0; nth < types.length; ++nth) {
+            valueTypes[nth] = ValueType.values()[types[nth]];
+        }
+
+        return valueTypes;
+    }
+
+    /**
+     * Called by Rust to add a function, imported from `namespace`,
+     * or exported if `namespace` is `null`. The value types are
+     * given by their ordinal in `ValueType`.
+     */
+    private void addFunction(String namespace, String name, int[] params, int[] results) {
+        this.add(namespace, name, new FunctionType(valueTypes(params), valueTypes(results)));
+    }
+
+    /**
+     * Called by Rust to add a memory.
+     */
+    private void addMemory(String namespace, String name, int minimumPages, int maximumPages, boolean shared) {
+        this.add(namespace, name, new MemoryType(minimumPages, maximumPages, shared));
+    }
+
+    /**
+     * Called by Rust to add a table.
+     */
+    private void addTable(String namespace, String name, int minimumElements, int maximumElements) {
+        this.add(namespace, name, new TableType(minimumElements, maximumElements));
+    }
+
+    /**
+     * Called by Rust to add a global.
+     */
+    private void addGlobal(String namespace, String name, int valueType, boolean mutable) {
+        this.add(namespace, name, new GlobalType(ValueType.values()[valueType], mutable));
+    }
+}
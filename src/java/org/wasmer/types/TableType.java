@@ -0,0 +1,40 @@
+package org.wasmer.types;
+
+/**
+ * `TableType` represents the limits of a WebAssembly table, in
+ * elements.
+ */
+public final class TableType extends ExternType {
+    private final int minimumElements;
+    private final int maximumElements;
+
+    TableType(int minimumElements, int maximumElements) {
+        this.minimumElements = minimumElements;
+        this.maximumElements = maximumElements;
+    }
+
+    @Override
+    public ExternKind getKind() {
+        return ExternKind.TABLE;
+    }
+
+    /**
+     * Return the initial number of elements.
+     */
+    public int getMinimumElements() {
+        return this.minimumElements;
+    }
+
+    /**
+     * Return the maximum number of elements, or -1 if the table has
+     * no maximum.
+     */
+    public int getMaximumElements() {
+        return this.maximumElements;
+    }
+
+    @Override
+    public String toString() {
+        return "table " + this.minimumElements + (this.maximumElements < 0 ? "" : " " + this.maximumElements);
+    }
+}
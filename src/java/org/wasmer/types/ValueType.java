@@ -0,0 +1,40 @@
+package org.wasmer.types;
+
+import org.wasmer.V128;
+
+/**
+ * `ValueType` represents the type of a WebAssembly value, e.g. of a
+ * function parameter or of a global.
+ */
+public enum ValueType {
+    I32(Integer.class),
+    I64(Long.class),
+    F32(Float.class),
+    F64(Double.class),
+    V128(V128.class);
+
+    private final Class<?> javaClass;
+
+    ValueType(Class<?> javaClass) {
+        this.javaClass = javaClass;
+    }
+
+    /**
+     * Return the Java class representing values of this type, e.g.
+     * `Integer` for `i32`.
+     */
+    public Class<?> getJavaClass() {
+        return this.javaClass;
+    }
+
+    /**
+     * Check whether a Java object can be converted to a value of
+     * this type.
+     *
+     * @param value The Java object.
+     * @return true if, and only if, the object is a value of this type.
+     */
+    public boolean isInstance(Object value) {
+        return this.javaClass.isInstance(value);
+    }
+}
@@ -1,6 +1,12 @@
+mod config;
+mod descriptor;
 mod exception;
+mod imports;
 mod instance;
+mod limits;
 mod memory;
 mod module;
+mod profiler;
 mod types;
 mod value;
+mod wasi;
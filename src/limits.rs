@@ -0,0 +1,383 @@
+use crate::{exception::Error, memory};
+use jni::{
+    objects::{GlobalRef, JObject},
+    sys::jint,
+    JNIEnv, JavaVM,
+};
+use std::{cell::RefCell, convert::TryFrom, fmt, mem, ptr::NonNull, sync::Arc};
+use wasmer::{
+    vm::{self, MemoryError, MemoryStyle, TableStyle, VMMemoryDefinition, VMTableDefinition},
+    BaseTunables, MemoryType, Pages, TableType, Target, Tunables,
+};
+use wasmer_types::WASM_PAGE_SIZE;
+
+/// Resources an instance is allowed to use, read from an
+/// `org.wasmer.ResourceLimits` object.
+#[derive(Clone)]
+pub struct Limits {
+    pub maximum_memory_pages: Option<u32>,
+    pub maximum_table_elements: Option<u32>,
+    pub preallocated_memory_pages: u32,
+    pub memory_growth_callback: Option<Arc<MemoryGrowthCallback>>,
+}
+
+/// An `org.wasmer.MemoryGrowthCallback` object, deciding whether the
+/// memories of an instance are allowed to grow.
+pub struct MemoryGrowthCallback {
+    java_vm: JavaVM,
+    callback: GlobalRef,
+}
+
+impl MemoryGrowthCallback {
+    /// Ask the callback whether a memory of `current_pages` is
+    /// allowed to grow by `delta_pages`. A callback throwing an
+    /// exception denies the growth: the exception cannot stay pending
+    /// while the guest is running.
+    fn allow(&self, current_pages: Pages, delta_pages: Pages) -> bool {
+        let env = match self.java_vm.get_env() {
+            Ok(env) => env,
+            Err(_) => return false,
+        };
+
+        let allowed = env
+            .call_method(
+                self.callback.as_obj(),
+                "allow",
+                "(II)Z",
+                &[
+                    (current_pages.0 as jint).into(),
+                    (delta_pages.0 as jint).into(),
+                ],
+            )
+            .and_then(|allowed| allowed.z());
+
+        match allowed {
+            Ok(allowed) => allowed,
+            Err(_) => {
+                let _ = env.exception_clear();
+
+                false
+            }
+        }
+    }
+}
+
+impl fmt::Debug for MemoryGrowthCallback {
+    fn fmt(&self, formatter: &mut fmt::Formatter) -> fmt::Result {
+        formatter.write_str("MemoryGrowthCallback")
+    }
+}
+
+/// A memory whose growth is allowed by a `MemoryGrowthCallback`. The
+/// host growing it with `Memory.grow`, and the guest growing it with
+/// a `memory.grow` instruction, both go through `vm::Memory::grow`.
+/// A denied growth fails as for a memory at its maximum size: the
+/// instruction returns -1.
+#[derive(Debug)]
+struct GatedMemory {
+    memory: Arc<dyn vm::Memory>,
+    callback: Arc<MemoryGrowthCallback>,
+}
+
+impl vm::Memory for GatedMemory {
+    fn ty(&self) -> &MemoryType {
+        self.memory.ty()
+    }
+
+    fn style(&self) -> &MemoryStyle {
+        self.memory.style()
+    }
+
+    fn size(&self) -> Pages {
+        self.memory.size()
+    }
+
+    fn grow(&self, delta: Pages) -> Result<Pages, MemoryError> {
+        // Growing by 0 pages reads the size, it is always allowed.
+        if delta.0 > 0 && !self.callback.allow(self.memory.size(), delta) {
+            return Err(MemoryError::Generic("the growth has been denied".to_string()));
+        }
+
+        self.memory.grow(delta)
+    }
+
+    fn vmmemory(&self) -> NonNull<VMMemoryDefinition> {
+        self.memory.vmmemory()
+    }
+}
+
+/// The instantiation running on the current thread, read by
+/// `LimitingTunables` when the memories and the tables are allocated.
+struct Instantiation {
+    limits: Option<Limits>,
+    memories: Vec<Arc<dyn vm::Memory>>,
+}
+
+thread_local! {
+    static INSTANTIATION: RefCell<Option<Instantiation>> = RefCell::new(None);
+}
+
+/// Run `instantiate`, which creates an instance on the current
+/// thread, with `limits` applied to its memories and its tables.
+/// Return its result, with the memories defined by the instance,
+/// exported or not.
+pub fn instantiate<T>(
+    limits: Option<Limits>,
+    instantiate: impl FnOnce() -> T,
+) -> (T, Vec<Arc<dyn vm::Memory>>) {
+    let instantiation = Instantiation {
+        limits,
+        memories: Vec::new(),
+    };
+
+    // An instantiation may be nested, e.g. in a host function called
+    // by a start function.
+    let previous_instantiation =
+        INSTANTIATION.with(|current| current.borrow_mut().replace(instantiation));
+    let result = instantiate();
+    let instantiation = INSTANTIATION.with(|current| {
+        mem::replace(&mut *current.borrow_mut(), previous_instantiation)
+    });
+
+    (
+        result,
+        instantiation.map_or_else(Vec::new, |instantiation| instantiation.memories),
+    )
+}
+
+/// The limits of the instantiation running on the current thread.
+fn current_limits() -> Option<Limits> {
+    INSTANTIATION.with(|current| {
+        current
+            .borrow()
+            .as_ref()
+            .and_then(|instantiation| instantiation.limits.clone())
+    })
+}
+
+/// Return the size of `memories` in bytes.
+pub fn memories_size(memories: &[Arc<dyn vm::Memory>]) -> u64 {
+    memories
+        .iter()
+        .map(|memory| memory.size().0 as u64 * WASM_PAGE_SIZE as u64)
+        .sum()
+}
+
+impl Limits {
+    /// Read the limits from an `org.wasmer.ResourceLimits` object. A
+    /// null object means the instance is not limited.
+    pub fn from_java(env: &JNIEnv, limits_object: JObject) -> Result<Option<Self>, Error> {
+        if limits_object.is_null() {
+            return Ok(None);
+        }
+
+        // A negative value means no limit.
+        let limit = |field: &str| -> Result<Option<u32>, Error> {
+            Ok(u32::try_from(env.get_field(limits_object, field, "I")?.i()?).ok())
+        };
+
+        let callback_object = env
+            .get_field(
+                limits_object,
+                "memoryGrowthCallback",
+                "Lorg/wasmer/MemoryGrowthCallback;",
+            )?
+            .l()?;
+
+        let memory_growth_callback = if callback_object.is_null() {
+            None
+        } else {
+            Some(Arc::new(MemoryGrowthCallback {
+                java_vm: env.get_java_vm()?,
+                callback: env.new_global_ref(callback_object)?,
+            }))
+        };
+
+        Ok(Some(Self {
+            maximum_memory_pages: limit("maximumMemoryPages")?,
+            maximum_table_elements: limit("maximumTableElements")?,
+            preallocated_memory_pages: limit("preallocatedMemoryPages")?.unwrap_or(0),
+            memory_growth_callback,
+        }))
+    }
+
+    /// Clamp the maximum size of a memory to the limit, so that it
+    /// cannot grow beyond it, neither with `Memory.grow` nor with a
+    /// `memory.grow` instruction.
+    fn limit_memory(&self, memory_type: &MemoryType) -> Result<MemoryType, MemoryError> {
+        let mut limited_type = memory_type.clone();
+
+        if let Some(maximum_pages) = self.maximum_memory_pages {
+            if memory_type.minimum.0 > maximum_pages {
+                return Err(MemoryError::Generic(format!(
+                    "a memory of {} pages exceeds the limit of {} pages",
+                    memory_type.minimum.0, maximum_pages
+                )));
+            }
+
+            if self.preallocated_memory_pages > maximum_pages {
+                return Err(MemoryError::Generic(format!(
+                    "preallocating {} pages exceeds the limit of {} pages",
+                    self.preallocated_memory_pages, maximum_pages
+                )));
+            }
+
+            limited_type.maximum = Some(Pages(
+                memory_type
+                    .maximum
+                    .map_or(maximum_pages, |pages| pages.0.min(maximum_pages)),
+            ));
+        }
+
+        Ok(limited_type)
+    }
+
+    /// Clamp the maximum size of a table to the limit.
+    fn limit_table(&self, table_type: &TableType) -> Result<TableType, String> {
+        let mut limited_type = table_type.clone();
+
+        if let Some(maximum_elements) = self.maximum_table_elements {
+            if table_type.minimum > maximum_elements {
+                return Err(format!(
+                    "a table of {} elements exceeds the limit of {} elements",
+                    table_type.minimum, maximum_elements
+                ));
+            }
+
+            limited_type.maximum = Some(
+                table_type
+                    .maximum
+                    .map_or(maximum_elements, |elements| elements.min(maximum_elements)),
+            );
+        }
+
+        Ok(limited_type)
+    }
+
+    /// Grow a newly allocated memory to at least the preallocated
+    /// size, and touch all its pages so that the operating system
+    /// maps them now.
+    fn preallocate(&self, memory: &Arc<dyn vm::Memory>) -> Result<(), MemoryError> {
+        if self.preallocated_memory_pages == 0 {
+            return Ok(());
+        }
+
+        let current_pages = memory.size().0;
+
+        if self.preallocated_memory_pages > current_pages {
+            memory.grow(Pages(self.preallocated_memory_pages - current_pages))?;
+        }
+
+        let definition = unsafe { memory.vmmemory().as_ref() };
+        memory::touch(definition.base, definition.current_length as usize);
+
+        Ok(())
+    }
+}
+
+/// Tunables of the stores of this crate, applying the limits of the
+/// instance being instantiated, if any, when its memories and its
+/// tables are allocated, and recording its memories, see
+/// `instantiate`. The growth of its memories is gated by the memory
+/// growth callback, if any. The memories and the tables created by
+/// the host, e.g. imported ones, are not limited.
+pub struct LimitingTunables<T: Tunables> {
+    base: T,
+}
+
+impl LimitingTunables<BaseTunables> {
+    pub fn new() -> Self {
+        Self {
+            base: BaseTunables::for_target(&Target::default()),
+        }
+    }
+}
+
+impl<T: Tunables> Tunables for LimitingTunables<T> {
+    // The style of a memory is computed when compiling the module,
+    // before the limits are known. Clamping the maximum size later
+    // keeps the memory compatible with its style.
+    fn memory_style(&self, memory_type: &MemoryType) -> MemoryStyle {
+        self.base.memory_style(memory_type)
+    }
+
+    fn table_style(&self, table_type: &TableType) -> TableStyle {
+        self.base.table_style(table_type)
+    }
+
+    fn create_host_memory(
+        &self,
+        memory_type: &MemoryType,
+        style: &MemoryStyle,
+    ) -> Result<Arc<dyn vm::Memory>, MemoryError> {
+        self.base.create_host_memory(memory_type, style)
+    }
+
+    unsafe fn create_vm_memory(
+        &self,
+        memory_type: &MemoryType,
+        style: &MemoryStyle,
+        vm_definition_location: NonNull<VMMemoryDefinition>,
+    ) -> Result<Arc<dyn vm::Memory>, MemoryError> {
+        let limits = current_limits();
+
+        let memory: Arc<dyn vm::Memory> = match limits {
+            Some(limits) => {
+                let limited_type = limits.limit_memory(memory_type)?;
+                let memory =
+                    self.base
+                        .create_vm_memory(&limited_type, style, vm_definition_location)?;
+                limits.preallocate(&memory)?;
+
+                // The preallocation is not gated by the callback.
+                match &limits.memory_growth_callback {
+                    Some(callback) => Arc::new(GatedMemory {
+                        memory,
+                        callback: callback.clone(),
+                    }),
+                    None => memory,
+                }
+            }
+            None => self
+                .base
+                .create_vm_memory(memory_type, style, vm_definition_location)?,
+        };
+
+        INSTANTIATION.with(|current| {
+            if let Some(instantiation) = current.borrow_mut().as_mut() {
+                instantiation.memories.push(memory.clone());
+            }
+        });
+
+        Ok(memory)
+    }
+
+    fn create_host_table(
+        &self,
+        table_type: &TableType,
+        style: &TableStyle,
+    ) -> Result<Arc<dyn vm::Table>, String> {
+        self.base.create_host_table(table_type, style)
+    }
+
+    unsafe fn create_vm_table(
+        &self,
+        table_type: &TableType,
+        style: &TableStyle,
+        vm_definition_location: NonNull<VMTableDefinition>,
+    ) -> Result<Arc<dyn vm::Table>, String> {
+        let limits = current_limits();
+
+        match limits {
+            Some(limits) => {
+                let limited_type = limits.limit_table(table_type)?;
+
+                self.base
+                    .create_vm_table(&limited_type, style, vm_definition_location)
+            }
+            None => self
+                .base
+                .create_vm_table(table_type, style, vm_definition_location),
+        }
+    }
+}
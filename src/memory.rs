@@ -4,30 +4,143 @@ use crate::{
 };
 use jni::{
     objects::{JClass, JObject},
-    sys::jint,
+    sys::{jboolean, jint, jintArray, jlong},
     JNIEnv,
 };
-use std::{cell::Cell, panic, rc::Rc, slice};
-use wasmer_runtime::memory::MemoryView;
-use wasmer_runtime::units::Pages;
-use wasmer::Memory as WasmMemory;
+use std::{
+    cell::Cell,
+    convert::TryFrom,
+    mem, panic, ptr,
+    slice,
+    sync::{
+        atomic::{AtomicI32, AtomicI64, Ordering},
+        Arc,
+    },
+};
+use wasmer::{Memory as WasmMemory, MemoryType, MemoryView, Pages, Store};
+
+/// The size of an operating system page, used to pre-touch a memory.
+const OS_PAGE_SIZE: usize = 4096;
+
+/// Touch all the pages of `length` bytes at `data`, so that the
+/// operating system maps them now rather than on the first access.
+pub fn touch(data: *mut u8, length: usize) {
+    for offset in (0..length).step_by(OS_PAGE_SIZE) {
+        // Volatile accesses, so that the write is not optimized out.
+        unsafe {
+            let byte = data.add(offset);
+            byte.write_volatile(byte.read_volatile());
+        }
+    }
+}
 
+/// The memory is reference-counted atomically, because the
+/// `org.wasmer.Memory` object holding it is dropped by the garbage
+/// collector, from another thread.
 #[derive(Clone)]
 pub struct Memory {
-    pub memory: Rc<WasmMemory>,
+    pub memory: Arc<WasmMemory>,
 }
 
 impl Memory {
-    pub fn new(memory: Rc<WasmMemory>) -> Self {
+    pub fn new(memory: Arc<WasmMemory>) -> Self {
         Self { memory }
     }
 
+    /// Grow the memory. It cannot grow beyond its maximum size, which
+    /// the resource limits of the instance may have lowered.
     pub fn grow(&self, number_of_pages: u32) -> Result<u32, Error> {
         self.memory
             .grow(Pages(number_of_pages))
             .map(|previous_pages| previous_pages.0)
             .map_err(|e| runtime_error(format!("Failed to grow the memory: {}", e)))
     }
+
+    /// Return a pointer to the data of the memory, and its size.
+    fn data(&self) -> (*mut u8, usize) {
+        let view: MemoryView<u8> = self.memory.view();
+
+        (view[..].as_ptr() as *mut Cell<u8> as *mut u8, view.len())
+    }
+
+    /// Copy ranges of bytes, given as `(source offset, destination
+    /// offset, length)`, from this memory to `destination`. All the
+    /// ranges are checked before anything is copied.
+    pub fn copy_to(
+        &self,
+        destination: &Memory,
+        ranges: &[(jint, jint, jint)],
+    ) -> Result<(), Error> {
+        let (source_data, source_length) = self.data();
+        let (destination_data, destination_length) = destination.data();
+
+        let in_bounds = |offset: jint, length: jint, memory_length: usize| {
+            offset >= 0
+                && length >= 0
+                && (offset as usize)
+                    .checked_add(length as usize)
+                    .map_or(false, |end| end <= memory_length)
+        };
+
+        for &(source_offset, destination_offset, length) in ranges {
+            if !in_bounds(source_offset, length, source_length)
+                || !in_bounds(destination_offset, length, destination_length)
+            {
+                return Err(runtime_error(format!(
+                    "Out of bounds copy of {} bytes from offset {} to offset {}",
+                    length, source_offset, destination_offset
+                )));
+            }
+        }
+
+        for &(source_offset, destination_offset, length) in ranges {
+            // `ptr::copy` allows the ranges to overlap, in case both
+            // memories are the same.
+            unsafe {
+                ptr::copy(
+                    source_data.add(source_offset as usize),
+                    destination_data.add(destination_offset as usize),
+                    length as usize,
+                );
+            }
+        }
+
+        Ok(())
+    }
+
+    /// Create a new shared memory, which can be imported by several instances.
+    pub fn shared(minimum_pages: u32, maximum_pages: u32) -> Result<Self, Error> {
+        let memory_type = MemoryType::new(minimum_pages, Some(maximum_pages), true);
+        let memory = WasmMemory::new(&Store::default(), memory_type)
+            .map_err(|e| runtime_error(format!("Failed to create the shared memory: {}", e)))?;
+
+        Ok(Self::new(Arc::new(memory)))
+    }
+
+    /// Return the atomic value of type `A` at `offset`, after checking
+    /// the bounds and the alignment.
+    pub fn atomic<A>(&self, offset: jint) -> Result<&A, Error> {
+        let size = mem::size_of::<A>();
+        let view: MemoryView<u8> = self.memory.view();
+        let offset = usize::try_from(offset)
+            .map_err(|_| runtime_error(format!("Negative memory offset {}", offset)))?;
+
+        if offset % size != 0 {
+            return Err(runtime_error(format!(
+                "Misaligned atomic access at offset {}",
+                offset
+            )));
+        }
+
+        if offset + size > view.len() {
+            return Err(runtime_error(format!(
+                "Out of bounds atomic access at offset {}",
+                offset
+            )));
+        }
+
+        Ok(unsafe { &*(view[offset..].as_ptr() as *const A) })
+    }
 }
 
 #[no_mangle]
@@ -101,6 +214,236 @@ pub extern "system" fn Java_org_wasmer_Memory_nativeMemoryGrow(
     joption_or_throw(&env, output).unwrap_or(0)
 }
 
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeDrop(
+    _env: JNIEnv,
+    _class: JClass,
+    memory_pointer: jptr,
+) {
+    let _: Pointer<Memory> = memory_pointer.into();
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeCopy(
+    env: JNIEnv,
+    _class: JClass,
+    source_pointer: jptr,
+    destination_pointer: jptr,
+    source_offset: jint,
+    destination_offset: jint,
+    length: jint,
+) {
+    let output = panic::catch_unwind(|| {
+        let source: &Memory = Into::<Pointer<Memory>>::into(source_pointer).borrow();
+        let destination: &Memory = Into::<Pointer<Memory>>::into(destination_pointer).borrow();
+
+        source.copy_to(destination, &[(source_offset, destination_offset, length)])
+    });
+
+    joption_or_throw(&env, output).unwrap_or(())
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeCopyRanges(
+    env: JNIEnv,
+    _class: JClass,
+    source_pointer: jptr,
+    destination_pointer: jptr,
+    source_offsets: jintArray,
+    destination_offsets: jintArray,
+    lengths: jintArray,
+) {
+    let output = panic::catch_unwind(|| {
+        let source: &Memory = Into::<Pointer<Memory>>::into(source_pointer).borrow();
+        let destination: &Memory = Into::<Pointer<Memory>>::into(destination_pointer).borrow();
+
+        let number_of_ranges = env.get_array_length(lengths)? as usize;
+        let mut ranges = vec![(0, 0, 0); number_of_ranges];
+        let mut buffer = vec![0; number_of_ranges];
+
+        env.get_int_array_region(source_offsets, 0, &mut buffer)?;
+        ranges.iter_mut().zip(&buffer).for_each(|(range, offset)| range.0 = *offset);
+
+        env.get_int_array_region(destination_offsets, 0, &mut buffer)?;
+        ranges.iter_mut().zip(&buffer).for_each(|(range, offset)| range.1 = *offset);
+
+        env.get_int_array_region(lengths, 0, &mut buffer)?;
+        ranges.iter_mut().zip(&buffer).for_each(|(range, length)| range.2 = *length);
+
+        source.copy_to(destination, &ranges)
+    });
+
+    joption_or_throw(&env, output).unwrap_or(())
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeSharedMemory(
+    env: JNIEnv,
+    _class: JClass,
+    minimum_pages: jint,
+    maximum_pages: jint,
+) -> jptr {
+    let output = panic::catch_unwind(|| {
+        let memory = Memory::shared(minimum_pages as u32, maximum_pages as u32)?;
+
+        Ok(Pointer::new(memory).into())
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeAtomicGetInt(
+    env: JNIEnv,
+    _class: JClass,
+    memory_pointer: jptr,
+    offset: jint,
+) -> jint {
+    let output = panic::catch_unwind(|| {
+        let memory: &Memory = Into::<Pointer<Memory>>::into(memory_pointer).borrow();
+
+        Ok(memory.atomic::<AtomicI32>(offset)?.load(Ordering::SeqCst))
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeAtomicSetInt(
+    env: JNIEnv,
+    _class: JClass,
+    memory_pointer: jptr,
+    offset: jint,
+    value: jint,
+) {
+    let output = panic::catch_unwind(|| {
+        let memory: &Memory = Into::<Pointer<Memory>>::into(memory_pointer).borrow();
+
+        Ok(memory.atomic::<AtomicI32>(offset)?.store(value, Ordering::SeqCst))
+    });
+
+    joption_or_throw(&env, output).unwrap_or(())
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeAtomicGetAndAddInt(
+    env: JNIEnv,
+    _class: JClass,
+    memory_pointer: jptr,
+    offset: jint,
+    delta: jint,
+) -> jint {
+    let output = panic::catch_unwind(|| {
+        let memory: &Memory = Into::<Pointer<Memory>>::into(memory_pointer).borrow();
+
+        Ok(memory.atomic::<AtomicI32>(offset)?.fetch_add(delta, Ordering::SeqCst))
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeAtomicCompareAndSetInt(
+    env: JNIEnv,
+    _class: JClass,
+    memory_pointer: jptr,
+    offset: jint,
+    expected: jint,
+    value: jint,
+) -> jboolean {
+    let output = panic::catch_unwind(|| {
+        let memory: &Memory = Into::<Pointer<Memory>>::into(memory_pointer).borrow();
+
+        match memory.atomic::<AtomicI32>(offset)?.compare_exchange(
+            expected,
+            value,
+            Ordering::SeqCst,
+            Ordering::SeqCst,
+        ) {
+            Ok(_) => Ok(1),
+            Err(_) => Ok(0),
+        }
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeAtomicGetLong(
+    env: JNIEnv,
+    _class: JClass,
+    memory_pointer: jptr,
+    offset: jint,
+) -> jlong {
+    let output = panic::catch_unwind(|| {
+        let memory: &Memory = Into::<Pointer<Memory>>::into(memory_pointer).borrow();
+
+        Ok(memory.atomic::<AtomicI64>(offset)?.load(Ordering::SeqCst))
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeAtomicSetLong(
+    env: JNIEnv,
+    _class: JClass,
+    memory_pointer: jptr,
+    offset: jint,
+    value: jlong,
+) {
+    let output = panic::catch_unwind(|| {
+        let memory: &Memory = Into::<Pointer<Memory>>::into(memory_pointer).borrow();
+
+        Ok(memory.atomic::<AtomicI64>(offset)?.store(value, Ordering::SeqCst))
+    });
+
+    joption_or_throw(&env, output).unwrap_or(())
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeAtomicGetAndAddLong(
+    env: JNIEnv,
+    _class: JClass,
+    memory_pointer: jptr,
+    offset: jint,
+    delta: jlong,
+) -> jlong {
+    let output = panic::catch_unwind(|| {
+        let memory: &Memory = Into::<Pointer<Memory>>::into(memory_pointer).borrow();
+
+        Ok(memory.atomic::<AtomicI64>(offset)?.fetch_add(delta, Ordering::SeqCst))
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Memory_nativeAtomicCompareAndSetLong(
+    env: JNIEnv,
+    _class: JClass,
+    memory_pointer: jptr,
+    offset: jint,
+    expected: jlong,
+    value: jlong,
+) -> jboolean {
+    let output = panic::catch_unwind(|| {
+        let memory: &Memory = Into::<Pointer<Memory>>::into(memory_pointer).borrow();
+
+        match memory.atomic::<AtomicI64>(offset)?.compare_exchange(
+            expected,
+            value,
+            Ordering::SeqCst,
+            Ordering::SeqCst,
+        ) {
+            Ok(_) => Ok(1),
+            Err(_) => Ok(0),
+        }
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
+
 pub mod java {
     use crate::{
         exception::Error,
@@ -1,29 +1,35 @@
 use crate::{
+    config::{Config, Features},
+    descriptor,
     exception::{joption_or_throw, runtime_error, Error},
+    imports,
     instance::Instance,
+    limits::{self, Limits},
     memory::Memory,
+    profiler::{self, Profile},
     types::{jptr, Pointer},
 };
 use jni::{
-    objects::{GlobalRef, JClass, JObject},
-    sys::{jboolean, jbyteArray},
+    objects::{GlobalRef, JByteBuffer, JClass, JObject},
+    sys::{jboolean, jbyteArray, jint, jobject},
     JNIEnv,
 };
-use std::{collections::HashMap, panic, rc::Rc};
-use wasmer_runtime::{self as runtime, validate, Export};
-use wasmer_runtime::{cache::Artifact, imports, load_cache_with};
+use std::{cell::RefCell, collections::HashMap, panic, rc::Rc, sync::Arc};
+use wasmer::{Extern, Instance as WasmInstance, Module as WasmModule};
 
 pub struct Module {
     #[allow(unused)]
     java_module_object: GlobalRef,
-    module: runtime::Module,
+    module: WasmModule,
 }
 
 impl Module {
-    fn new(java_module_object: GlobalRef, module_bytes: Vec<u8>) -> Result<Self, Error> {
-        let module_bytes = module_bytes.as_slice();
-        let module = runtime::compile(module_bytes)
-            .map_err(|e| runtime_error(format!("Failed to compile the module: {}", e)))?;
+    fn new(
+        java_module_object: GlobalRef,
+        module_bytes: &[u8],
+        config: &Config,
+    ) -> Result<Self, Error> {
+        let module = config.compile(module_bytes)?;
 
         Ok(Self {
             java_module_object,
@@ -32,37 +38,21 @@ impl Module {
     }
 
     fn serialize(&self) -> Result<Vec<u8>, Error> {
-        match self.module.cache() {
-            Ok(artifact) => match artifact.serialize() {
-                Ok(serialized_artifact) => Ok(serialized_artifact),
-                Err(_) => {
-                    return Err(runtime_error(format!(
-                        "Failed to serialize the module artifact."
-                    )))
-                }
-            },
-            Err(_) => return Err(runtime_error(format!("Failed to get the module artifact."))),
-        }
+        self.module
+            .serialize()
+            .map_err(|e| runtime_error(format!("Failed to serialize the module: {}", e)))
     }
 
     fn deserialize(
         java_module_object: GlobalRef,
-        serialized_module: Vec<u8>,
+        serialized_module: &[u8],
     ) -> Result<Self, Error> {
-        let module = match unsafe { Artifact::deserialize(serialized_module.as_slice()) } {
-            Ok(artifact) => {
-                match load_cache_with(artifact) {
-                    Ok(module) => module,
-                    Err(_) => {
-                        return Err(runtime_error(format!(
-                            "Failed to compile the serialized module."
-                        )))
-                    }
-                }
-            }
-            Err(_) => return Err(runtime_error(format!("Failed to deserialize the module."))),
-        };
+        // The store of the default configuration applies the resource limits.
+        let module = unsafe { WasmModule::deserialize(&Config::default().store(), serialized_module) }
+            .map_err(|e| runtime_error(format!("Failed to deserialize the module: {}", e)))?;
 
+        // A profiled module keeps its instrumentation, and imports the
+        // profiler functions, see `profiler::is_profiled`.
         Ok(Self {
             java_module_object,
             module,
@@ -76,12 +66,43 @@ pub extern "system" fn Java_org_wasmer_Module_nativeModuleInstantiate(
     _class: JClass,
     this: JObject,
     module_bytes: jbyteArray,
+    config_object: JObject,
 ) -> jptr {
     let output = panic::catch_unwind(|| {
         let module_bytes = env.convert_byte_array(module_bytes)?;
         let java_module = env.new_global_ref(this)?;
 
-        let module = Module::new(java_module, module_bytes)?;
+        let config = Config::from_java(&env, config_object)?;
+        let module = Module::new(java_module, module_bytes.as_slice(), &config)?;
+
+        Ok(Pointer::new(module).into())
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Module_nativeModuleInstantiateBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    this: JObject,
+    module_buffer: JByteBuffer,
+    length: jint,
+    config_object: JObject,
+) -> jptr {
+    let output = panic::catch_unwind(|| {
+        // Borrow the bytes of the direct byte buffer, without copying them.
+        let module_bytes = env.get_direct_buffer_address(module_buffer)?;
+        let module_bytes = module_bytes.get(..length as usize).ok_or_else(|| {
+            runtime_error(format!(
+                "The module buffer is smaller than {} bytes",
+                length
+            ))
+        })?;
+        let java_module = env.new_global_ref(this)?;
+
+        let config = Config::from_java(&env, config_object)?;
+        let module = Module::new(java_module, module_bytes, &config)?;
 
         Ok(Pointer::new(module).into())
     });
@@ -104,20 +125,30 @@ pub extern "system" fn Java_org_wasmer_Module_nativeInstantiate(
     _class: JClass,
     module_pointer: jptr,
     instance_object: JObject,
+    imports_object: JObject,
+    limits_object: JObject,
 ) -> jptr {
     let output = panic::catch_unwind(|| {
         let java_instance_object = env.new_global_ref(instance_object)?;
 
         let module: &Module = Into::<Pointer<Module>>::into(module_pointer).borrow();
-        let import_object = imports! {};
-        let instance = module.module.instantiate(&import_object).map_err(|e| {
+        let limits = Limits::from_java(&env, limits_object)?;
+        let import_object = imports::import_object(&env, &module.module, imports_object)?;
+
+        // The limits are applied by the tunables of the store, when
+        // the memories and the tables are allocated.
+        let (instance, defined_memories) = limits::instantiate(limits, || {
+            WasmInstance::new(&module.module, &import_object)
+        });
+        let instance = instance.map_err(|e| {
             runtime_error(format!("Failed to instantiate a WebAssembly module: {}", e))
         })?;
 
         let memories: HashMap<String, Memory> = instance
-            .exports()
+            .exports
+            .iter()
             .filter_map(|(export_name, export)| match export {
-                Export::Memory(memory) => Some((export_name.to_string(), Memory::new(Rc::new(memory.clone())))),
+                Extern::Memory(memory) => Some((export_name.to_string(), Memory::new(Arc::new(memory.clone())))),
                 _ => None,
             })
             .collect();
@@ -126,6 +157,12 @@ pub extern "system" fn Java_org_wasmer_Module_nativeInstantiate(
             java_instance_object,
             instance: Rc::new(instance),
             memories,
+            defined_memories,
+            profile: if profiler::is_profiled(&module.module) {
+                Some(Rc::new(RefCell::new(Profile::default())))
+            } else {
+                None
+            },
         })
         .into())
     });
@@ -133,18 +170,33 @@ pub extern "system" fn Java_org_wasmer_Module_nativeInstantiate(
     joption_or_throw(&env, output).unwrap_or(0)
 }
 
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Module_nativeDescribe(
+    env: JNIEnv,
+    _class: JClass,
+    module_pointer: jptr,
+) -> jobject {
+    let output = panic::catch_unwind(|| {
+        let module: &Module = Into::<Pointer<Module>>::into(module_pointer).borrow();
+
+        Ok(descriptor::describe(&env, &module.module)?.into_inner())
+    });
+
+    joption_or_throw(&env, output).unwrap_or(JObject::null().into_inner())
+}
+
 #[no_mangle]
 pub extern "system" fn Java_org_wasmer_Module_nativeValidate(
     env: JNIEnv,
     _class: JClass,
     module_bytes: jbyteArray,
+    features_object: JObject,
 ) -> jboolean {
     let output = panic::catch_unwind(|| {
         let module_bytes = env.convert_byte_array(module_bytes)?;
-        match validate(module_bytes.as_slice()) {
-            true => Ok(1),
-            false => Ok(0),
-        }
+        let features = Features::from_java(&env, features_object)?;
+
+        Ok(features.validate(module_bytes.as_slice()) as jboolean)
     });
 
     joption_or_throw(&env, output).unwrap_or(0)
@@ -176,6 +228,34 @@ pub extern "system" fn Java_org_wasmer_Module_nativeDeserialize(
     let output = panic::catch_unwind(|| {
         let java_module_object = env.new_global_ref(java_module)?;
         let serialized_module = env.convert_byte_array(java_serialized_module)?;
+        let module = Module::deserialize(java_module_object, serialized_module.as_slice())?;
+        Ok(Pointer::new(module).into())
+    });
+
+    joption_or_throw(&env, output).unwrap_or(0)
+}
+
+#[no_mangle]
+pub extern "system" fn Java_org_wasmer_Module_nativeDeserializeBuffer(
+    env: JNIEnv,
+    _class: JClass,
+    java_module: JObject,
+    serialized_buffer: JByteBuffer,
+    length: jint,
+) -> jptr {
+    let output = panic::catch_unwind(|| {
+        let java_module_object = env.new_global_ref(java_module)?;
+
+        // Borrow the bytes of the direct byte buffer, e.g. a file
+        // mapped in memory, without copying them.
+        let serialized_module = env.get_direct_buffer_address(serialized_buffer)?;
+        let serialized_module = serialized_module.get(..length as usize).ok_or_else(|| {
+            runtime_error(format!(
+                "The serialized module buffer is smaller than {} bytes",
+                length
+            ))
+        })?;
+
         let module = Module::deserialize(java_module_object, serialized_module)?;
         Ok(Pointer::new(module).into())
     });
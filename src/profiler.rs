@@ -0,0 +1,462 @@
+use crate::exception::Error;
+use jni::{objects::JObject, JNIEnv};
+use std::{
+    cell::RefCell,
+    collections::HashMap,
+    mem,
+    rc::Rc,
+    time::{Duration, Instant},
+};
+use wasmer::{
+    wasmparser::Operator, ExportIndex, Exports, Function, FunctionMiddleware, FunctionType,
+    GlobalInit, ImportObject, LocalFunctionIndex, MiddlewareError, MiddlewareReaderState, Module,
+    ModuleMiddleware, Type,
+};
+use wasmer_types::{
+    entity::{EntityRef, PrimaryMap},
+    FunctionIndex, ImportIndex,
+};
+use wasmer_vm::ModuleInfo;
+
+/// The namespace of the functions imported by a profiled module.
+/// Their presence marks the module as profiled, which survives the
+/// serialization of the module.
+const NAMESPACE: &str = "__wasmer_profiler";
+
+/// The functions imported by a profiled module, prepended to its
+/// imported functions: their indices are 0, 1 and 2.
+const ENTER: u32 = 0;
+const BEFORE_CALL: u32 = 1;
+const AFTER_CALL: u32 = 2;
+const FUNCTIONS: [&str; 3] = ["enter", "before_call", "after_call"];
+
+/// A middleware instrumenting each guest function to feed the active
+/// profile of the current thread: the function calls `enter` with
+/// its local index when it is entered, i.e. its index among the
+/// functions defined (not imported) by the module, and each call it
+/// makes is surrounded by `before_call` and `after_call`.
+///
+/// A function exits by `return`, by the `end` of its body, or by a
+/// branch to its label. Instead of tracking them, the frames of the
+/// callees are closed by `after_call`, once the call has returned
+/// to the caller. The frames of the function called by the host are
+/// closed when the call from the host ends, see `Profile::activate`.
+#[derive(Debug, Default)]
+pub struct Profiling;
+
+impl ModuleMiddleware for Profiling {
+    fn generate_function_middleware(
+        &self,
+        local_function_index: LocalFunctionIndex,
+    ) -> Box<dyn FunctionMiddleware> {
+        Box::new(FunctionProfiling {
+            local_function_index: local_function_index.index() as u32,
+            entered: false,
+        })
+    }
+
+    /// Prepend the profiler functions to the imported functions, and
+    /// shift the indices of all the other functions accordingly.
+    fn transform_module_info(&self, module_info: &mut ModuleInfo) {
+        let shift = |function_index: FunctionIndex| {
+            FunctionIndex::new(function_index.index() + FUNCTIONS.len())
+        };
+
+        let enter_signature = module_info
+            .signatures
+            .push(FunctionType::new(vec![Type::I32], vec![]));
+        let call_signature = module_info.signatures.push(FunctionType::new(vec![], vec![]));
+
+        let mut functions = PrimaryMap::with_capacity(module_info.functions.len() + FUNCTIONS.len());
+        functions.push(enter_signature);
+        functions.push(call_signature);
+        functions.push(call_signature);
+
+        for (_, signature) in module_info.functions.iter() {
+            functions.push(*signature);
+        }
+
+        module_info.functions = functions;
+        module_info.num_imported_functions += FUNCTIONS.len();
+
+        let imports = mem::take(&mut module_info.imports);
+
+        for (nth, name) in FUNCTIONS.iter().enumerate() {
+            module_info.imports.insert(
+                (NAMESPACE.to_string(), name.to_string(), nth as u32),
+                ImportIndex::Function(FunctionIndex::new(nth)),
+            );
+        }
+
+        for ((namespace, name, nth), import_index) in imports {
+            let import_index = match import_index {
+                ImportIndex::Function(function_index) => ImportIndex::Function(shift(function_index)),
+                import_index => import_index,
+            };
+
+            module_info.imports.insert(
+                (namespace, name, nth + FUNCTIONS.len() as u32),
+                import_index,
+            );
+        }
+
+        for export_index in module_info.exports.values_mut() {
+            if let ExportIndex::Function(function_index) = export_index {
+                *function_index = shift(*function_index);
+            }
+        }
+
+        module_info.start_function = module_info.start_function.map(shift);
+
+        for table_initializer in module_info.table_initializers.iter_mut() {
+            for function_index in table_initializer.elements.iter_mut() {
+                *function_index = shift(*function_index);
+            }
+        }
+
+        for elements in module_info.passive_elements.values_mut() {
+            for function_index in elements.iter_mut() {
+                *function_index = shift(*function_index);
+            }
+        }
+
+        for global_initializer in module_info.global_initializers.values_mut() {
+            if let GlobalInit::RefFunc(function_index) = global_initializer {
+                *function_index = shift(*function_index);
+            }
+        }
+
+        module_info.function_names = mem::take(&mut module_info.function_names)
+            .into_iter()
+            .map(|(function_index, name)| (shift(function_index), name))
+            .collect();
+    }
+}
+
+#[derive(Debug)]
+struct FunctionProfiling {
+    local_function_index: u32,
+    entered: bool,
+}
+
+impl FunctionMiddleware for FunctionProfiling {
+    fn feed<'a>(
+        &mut self,
+        operator: Operator<'a>,
+        state: &mut MiddlewareReaderState<'a>,
+    ) -> Result<(), MiddlewareError> {
+        if !self.entered {
+            self.entered = true;
+
+            state.push_operator(Operator::I32Const {
+                value: self.local_function_index as i32,
+            });
+            state.push_operator(Operator::Call {
+                function_index: ENTER,
+            });
+        }
+
+        match operator {
+            Operator::Call { function_index } => {
+                state.push_operator(Operator::Call {
+                    function_index: BEFORE_CALL,
+                });
+                state.push_operator(Operator::Call {
+                    function_index: function_index + FUNCTIONS.len() as u32,
+                });
+                state.push_operator(Operator::Call {
+                    function_index: AFTER_CALL,
+                });
+            }
+
+            Operator::CallIndirect { .. } => {
+                state.push_operator(Operator::Call {
+                    function_index: BEFORE_CALL,
+                });
+                state.push_operator(operator);
+                state.push_operator(Operator::Call {
+                    function_index: AFTER_CALL,
+                });
+            }
+
+            Operator::RefFunc { function_index } => {
+                state.push_operator(Operator::RefFunc {
+                    function_index: function_index + FUNCTIONS.len() as u32,
+                });
+            }
+
+            operator => state.push_operator(operator),
+        }
+
+        Ok(())
+    }
+}
+
+/// Check whether `module` has been compiled with profiling.
+pub fn is_profiled(module: &Module) -> bool {
+    module
+        .imports()
+        .any(|import| is_profiler_namespace(import.module()))
+}
+
+/// Check whether `namespace` is the one of the functions imported by
+/// a profiled module, which are hidden from its descriptor.
+pub fn is_profiler_namespace(namespace: &str) -> bool {
+    namespace == NAMESPACE
+}
+
+fn with_active_profile(callback: impl FnOnce(&mut Profile)) {
+    ACTIVE_PROFILE.with(|active_profile| {
+        if let Some(profile) = &*active_profile.borrow() {
+            callback(&mut profile.borrow_mut());
+        }
+    });
+}
+
+fn enter(local_function_index: i32) {
+    with_active_profile(|profile| profile.enter(local_function_index as u32));
+}
+
+fn before_call() {
+    with_active_profile(|profile| profile.call_depths.push(profile.frames.len()));
+}
+
+fn after_call() {
+    with_active_profile(|profile| {
+        if let Some(depth) = profile.call_depths.pop() {
+            profile.unwind(depth);
+        }
+    });
+}
+
+/// Register the profiler functions in `import_object`, if `module`
+/// has been compiled with profiling.
+pub fn register_imports(import_object: &mut ImportObject, module: &Module) {
+    if !is_profiled(module) {
+        return;
+    }
+
+    let store = module.store();
+    let mut namespace = Exports::new();
+    namespace.insert(FUNCTIONS[ENTER as usize], Function::new_native(store, enter));
+    namespace.insert(FUNCTIONS[BEFORE_CALL as usize], Function::new_native(store, before_call));
+    namespace.insert(FUNCTIONS[AFTER_CALL as usize], Function::new_native(store, after_call));
+
+    import_object.register(NAMESPACE, namespace);
+}
+
+thread_local! {
+    /// The profile of the instance running on the current thread.
+    static ACTIVE_PROFILE: RefCell<Option<Rc<RefCell<Profile>>>> = RefCell::new(None);
+}
+
+/// Make a profile active on the current thread, until the guard is
+/// dropped.
+pub struct ActiveProfileGuard {
+    profile: Rc<RefCell<Profile>>,
+    frames_depth: usize,
+    call_depths_depth: usize,
+    previous_profile: Option<Rc<RefCell<Profile>>>,
+}
+
+impl Drop for ActiveProfileGuard {
+    fn drop(&mut self) {
+        // Close the frames opened since the activation, including
+        // the ones left over by a trap.
+        {
+            let mut profile = self.profile.borrow_mut();
+            profile.unwind(self.frames_depth);
+            profile.call_depths.truncate(self.call_depths_depth);
+        }
+
+        let previous_profile = self.previous_profile.take();
+
+        ACTIVE_PROFILE.with(|active_profile| *active_profile.borrow_mut() = previous_profile);
+    }
+}
+
+#[derive(Default)]
+struct FunctionProfile {
+    calls: u64,
+    inclusive: Duration,
+    exclusive: Duration,
+    // Number of frames of this function on the stack, so that the
+    // inclusive time of a recursive function is counted once.
+    active_frames: u32,
+}
+
+struct Frame {
+    function_index: u32,
+    start: Instant,
+    children: Duration,
+}
+
+/// The data recorded by the profiler for an instance.
+#[derive(Default)]
+pub struct Profile {
+    functions: HashMap<u32, FunctionProfile>,
+    stacks: HashMap<Vec<u32>, Duration>,
+    frames: Vec<Frame>,
+    // Number of frames when each pending call has been made.
+    call_depths: Vec<usize>,
+}
+
+impl Profile {
+    /// Make `profile` the active profile of the current thread, e.g.
+    /// while an exported function runs. The calls may be nested,
+    /// e.g. when a host function calls the guest again.
+    pub fn activate(profile: &Rc<RefCell<Profile>>) -> ActiveProfileGuard {
+        let (frames_depth, call_depths_depth) = {
+            let profile = profile.borrow();
+
+            (profile.frames.len(), profile.call_depths.len())
+        };
+
+        ActiveProfileGuard {
+            profile: profile.clone(),
+            frames_depth,
+            call_depths_depth,
+            previous_profile: ACTIVE_PROFILE
+                .with(|active_profile| active_profile.borrow_mut().replace(profile.clone())),
+        }
+    }
+
+    fn enter(&mut self, function_index: u32) {
+        let function = self.functions.entry(function_index).or_default();
+        function.calls += 1;
+        function.active_frames += 1;
+
+        self.frames.push(Frame {
+            function_index,
+            start: Instant::now(),
+            children: Duration::default(),
+        });
+    }
+
+    /// Close the frames above `depth`, from the innermost one.
+    fn unwind(&mut self, depth: usize) {
+        while self.frames.len() > depth {
+            self.exit();
+        }
+    }
+
+    fn exit(&mut self) {
+        let stack: Vec<u32> = self.frames.iter().map(|frame| frame.function_index).collect();
+        let frame = match self.frames.pop() {
+            Some(frame) => frame,
+            None => return,
+        };
+        let inclusive = frame.start.elapsed();
+        let exclusive = inclusive.checked_sub(frame.children).unwrap_or_default();
+
+        let function = self.functions.entry(frame.function_index).or_default();
+        function.exclusive += exclusive;
+        function.active_frames -= 1;
+
+        if function.active_frames == 0 {
+            function.inclusive += inclusive;
+        }
+
+        *self.stacks.entry(stack).or_default() += exclusive;
+
+        if let Some(caller) = self.frames.last_mut() {
+            caller.children += inclusive;
+        }
+    }
+
+    /// Forget the data recorded so far. The profile may be reset
+    /// while calls are pending, e.g. by a host function: their frames
+    /// and their call depths are kept, so that they are closed
+    /// consistently, but they restart now, and only their time from
+    /// now on is recorded.
+    pub fn reset(&mut self) {
+        self.functions.clear();
+        self.stacks.clear();
+
+        let now = Instant::now();
+
+        for frame in self.frames.iter_mut() {
+            frame.start = now;
+            frame.children = Duration::default();
+
+            // The frame is not counted as a new call.
+            self.functions
+                .entry(frame.function_index)
+                .or_default()
+                .active_frames += 1;
+        }
+    }
+
+    /// Copy the profile into an `org.wasmer.Profile` object, with the
+    /// functions named after the exports of `module`, or after the
+    /// name section.
+    pub fn to_java(
+        &self,
+        env: &JNIEnv,
+        module: &Module,
+        profile_object: JObject,
+    ) -> Result<(), Error> {
+        let info = module.info();
+        let imported_functions = info.num_imported_functions;
+        let mut names: HashMap<u32, String> = HashMap::new();
+
+        for (export_name, export_index) in info.exports.iter() {
+            if let ExportIndex::Function(function_index) = export_index {
+                if function_index.index() >= imported_functions {
+                    names
+                        .entry((function_index.index() - imported_functions) as u32)
+                        .or_insert_with(|| export_name.clone());
+                }
+            }
+        }
+
+        for (function_index, function_name) in info.function_names.iter() {
+            if function_index.index() >= imported_functions {
+                names
+                    .entry((function_index.index() - imported_functions) as u32)
+                    .or_insert_with(|| function_name.clone());
+            }
+        }
+
+        // Unnamed functions are named after their index in the
+        // original module, without the profiler functions.
+        let name = |local_function_index: &u32| {
+            names.get(local_function_index).cloned().unwrap_or_else(|| {
+                format!(
+                    "func[{}]",
+                    *local_function_index as usize + imported_functions - FUNCTIONS.len()
+                )
+            })
+        };
+
+        for (function_index, function) in &self.functions {
+            env.call_method(
+                profile_object,
+                "addFunction",
+                "(Ljava/lang/String;JJJ)V",
+                &[
+                    JObject::from(env.new_string(name(function_index))?).into(),
+                    (function.calls as i64).into(),
+                    (function.inclusive.as_nanos() as i64).into(),
+                    (function.exclusive.as_nanos() as i64).into(),
+                ],
+            )?;
+        }
+
+        for (stack, exclusive) in &self.stacks {
+            let stack = stack.iter().map(name).collect::<Vec<String>>().join(";");
+
+            env.call_method(
+                profile_object,
+                "addStack",
+                "(Ljava/lang/String;J)V",
+                &[
+                    JObject::from(env.new_string(stack)?).into(),
+                    (exclusive.as_nanos() as i64).into(),
+                ],
+            )?;
+        }
+
+        Ok(())
+    }
+}
@@ -1,7 +1,7 @@
 use crate::exception::{runtime_error, Error};
 use jni::{errors::ErrorKind, objects::JObject, JNIEnv};
 use std::convert::TryFrom;
-use wasmer_runtime::Value as WasmValue;
+use wasmer::Val as WasmValue;
 
 /// Value wrapping the real WebAssembly value.
 pub struct Value(WasmValue);
@@ -16,6 +16,7 @@ pub const INT_CLASS: &str = "java/lang/Integer";
 pub const LONG_CLASS: &str = "java/lang/Long";
 pub const FLOAT_CLASS: &str = "java/lang/Float";
 pub const DOUBLE_CLASS: &str = "java/lang/Double";
+pub const V128_CLASS: &str = "org/wasmer/V128";
 
 impl TryFrom<(&JNIEnv<'_>, JObject<'_>)> for Value {
     type Error = Error;
@@ -34,6 +35,11 @@ impl TryFrom<(&JNIEnv<'_>, JObject<'_>)> for Value {
                 WasmValue::F32(env.call_method(jobject, "floatValue", "()F", &[])?.f()?)
             } else if env.is_instance_of(jobject, DOUBLE_CLASS).unwrap_or(false) {
                 WasmValue::F64(env.call_method(jobject, "doubleValue", "()D", &[])?.d()?)
+            } else if env.is_instance_of(jobject, V128_CLASS).unwrap_or(false) {
+                let low = env.get_field(jobject, "low", "J")?.j()? as u64 as u128;
+                let high = env.get_field(jobject, "high", "J")?.j()? as u64 as u128;
+
+                WasmValue::V128(high << 64 | low)
             } else {
                 return Err(runtime_error(format!(
                     "Could not convert argument {:?} to a WebAssembly value.",
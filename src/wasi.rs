@@ -0,0 +1,334 @@
+use crate::exception::{runtime_error, Error};
+use jni::{
+    errors::ErrorKind,
+    objects::{GlobalRef, JObject, JString},
+    sys::jlong,
+    JNIEnv, JavaVM,
+};
+use serde::{de, ser, Deserialize, Deserializer, Serialize, Serializer};
+use std::{
+    ffi::c_void,
+    fmt,
+    io::{self, Read, Seek, SeekFrom, Write},
+};
+use wasmer::{ImportObject, Module};
+use wasmer_wasi::{
+    generate_import_object_from_env, get_wasi_version,
+    state::{WasiFile, WasiFsError, WasiState},
+    WasiEnv, WasiVersion,
+};
+
+/// A WASI file backed by a Java NIO channel, i.e. a
+/// `java.nio.channels.ReadableByteChannel` or a
+/// `java.nio.channels.WritableByteChannel`.
+///
+/// The buffers are handed to the channel as direct byte buffers, so
+/// no copy happens on the Java heap. A read borrows the WebAssembly
+/// memory, while a write borrows the native copy of the guest data
+/// made by `wasmer-wasi` for each buffer written by the guest.
+pub struct JavaChannel {
+    java_vm: JavaVM,
+    channel: GlobalRef,
+}
+
+impl JavaChannel {
+    fn new(env: &JNIEnv, channel: JObject) -> Result<Self, Error> {
+        Ok(Self {
+            java_vm: env.get_java_vm()?,
+            channel: env.new_global_ref(channel)?,
+        })
+    }
+
+    /// Call `method` on the channel with a direct byte buffer over the
+    /// `length` bytes at `data`, and return the number of transferred
+    /// bytes.
+    fn transfer(
+        &self,
+        method: &str,
+        data: *mut u8,
+        length: usize,
+        read_only: bool,
+    ) -> io::Result<usize> {
+        let env = self.java_vm.get_env().map_err(to_io_error)?;
+        let mut transferred = 0;
+
+        // The guest may read or write many times before returning to
+        // Java, so the local references created here (the byte
+        // buffer, its read-only view, the returned value) are
+        // released when the frame is popped.
+        let result = env.with_local_frame(4, || {
+            let mut byte_buffer = new_direct_byte_buffer(&env, data, length)?;
+
+            if read_only {
+                byte_buffer = env
+                    .call_method(byte_buffer, "asReadOnlyBuffer", "()Ljava/nio/ByteBuffer;", &[])?
+                    .l()?;
+            }
+
+            transferred = env
+                .call_method(
+                    self.channel.as_obj(),
+                    method,
+                    "(Ljava/nio/ByteBuffer;)I",
+                    &[byte_buffer.into()],
+                )?
+                .i()?;
+
+            Ok(JObject::null())
+        });
+
+        match result {
+            // A negative value means the end of the stream.
+            Ok(_) => Ok(transferred.max(0) as usize),
+            Err(error) => match take_exception(&env) {
+                Some(description) => Err(io::Error::new(io::ErrorKind::Other, description)),
+                None => Err(to_io_error(error)),
+            },
+        }
+    }
+}
+
+/// Create a direct byte buffer over the `length` bytes at `data`.
+/// Unlike `JNIEnv::new_direct_byte_buffer`, it does not need a
+/// `&mut [u8]`, which cannot be made from the `&[u8]` given to
+/// `Write::write` without undefined behaviour.
+fn new_direct_byte_buffer<'a>(
+    env: &JNIEnv<'a>,
+    data: *mut u8,
+    length: usize,
+) -> Result<JObject<'a>, Error> {
+    let raw_env = env.get_native_interface();
+
+    let byte_buffer = unsafe {
+        let new_direct_byte_buffer = (**raw_env)
+            .NewDirectByteBuffer
+            .ok_or_else(|| {
+                Error::from_kind(ErrorKind::JNIEnvMethodNotFound("NewDirectByteBuffer"))
+            })?;
+
+        new_direct_byte_buffer(raw_env, data as *mut c_void, length as jlong)
+    };
+
+    if byte_buffer.is_null() {
+        return Err(Error::from_kind(ErrorKind::NullPtr("NewDirectByteBuffer")));
+    }
+
+    Ok(JObject::from(byte_buffer))
+}
+
+/// Clear the pending Java exception, if any, and return its
+/// description. The exception must not stay pending while the guest
+/// is running: it is turned into an I/O error, and then into a WASI
+/// error code.
+fn take_exception(env: &JNIEnv) -> Option<String> {
+    let exception = env
+        .exception_occurred()
+        .ok()
+        .filter(|exception| !exception.is_null())?;
+    env.exception_clear().ok()?;
+
+    let mut description = None;
+    let _ = env.with_local_frame(1, || {
+        let string = env
+            .call_method(exception, "toString", "()Ljava/lang/String;", &[])?
+            .l()?;
+        description = Some(env.get_string(JString::from(string))?.into());
+
+        Ok(JObject::null())
+    });
+    let _ = env.delete_local_ref(exception.into());
+
+    description
+}
+
+fn to_io_error(error: Error) -> io::Error {
+    io::Error::new(io::ErrorKind::Other, error.to_string())
+}
+
+impl fmt::Debug for JavaChannel {
+    fn fmt(&self, formatter: &mut fmt::Formatter) -> fmt::Result {
+        formatter.write_str("JavaChannel")
+    }
+}
+
+impl Read for JavaChannel {
+    fn read(&mut self, buffer: &mut [u8]) -> io::Result<usize> {
+        self.transfer("read", buffer.as_mut_ptr(), buffer.len(), false)
+    }
+}
+
+impl Write for JavaChannel {
+    fn write(&mut self, buffer: &[u8]) -> io::Result<usize> {
+        // The buffer is exposed as a read-only byte buffer to Java, so
+        // it is never written through the mutable pointer.
+        self.transfer("write", buffer.as_ptr() as *mut u8, buffer.len(), true)
+    }
+
+    fn flush(&mut self) -> io::Result<()> {
+        Ok(())
+    }
+}
+
+impl Seek for JavaChannel {
+    fn seek(&mut self, _position: SeekFrom) -> io::Result<u64> {
+        Err(io::Error::new(
+            io::ErrorKind::Other,
+            "A Java channel cannot be seeked",
+        ))
+    }
+}
+
+// A Java channel lives in the JVM, it cannot be serialized along
+// with the WASI state.
+impl Serialize for JavaChannel {
+    fn serialize<S: Serializer>(&self, _serializer: S) -> Result<S::Ok, S::Error> {
+        Err(ser::Error::custom("A Java channel cannot be serialized"))
+    }
+}
+
+impl<'de> Deserialize<'de> for JavaChannel {
+    fn deserialize<D: Deserializer<'de>>(_deserializer: D) -> Result<Self, D::Error> {
+        Err(de::Error::custom("A Java channel cannot be deserialized"))
+    }
+}
+
+#[typetag::serde]
+impl WasiFile for JavaChannel {
+    fn last_accessed(&self) -> u64 {
+        0
+    }
+
+    fn last_modified(&self) -> u64 {
+        0
+    }
+
+    fn created_time(&self) -> u64 {
+        0
+    }
+
+    fn size(&self) -> u64 {
+        0
+    }
+
+    fn set_len(&mut self, _new_size: u64) -> Result<(), WasiFsError> {
+        Err(WasiFsError::PermissionDenied)
+    }
+
+    fn unlink(&mut self) -> Result<(), WasiFsError> {
+        Ok(())
+    }
+
+    fn bytes_available(&self) -> Result<usize, WasiFsError> {
+        Err(WasiFsError::InvalidInput)
+    }
+}
+
+/// Read a `String[]` returned by the `org.wasmer.Wasi` method named `method`.
+fn strings(env: &JNIEnv, wasi_object: JObject, method: &str) -> Result<Vec<String>, Error> {
+    let array = env
+        .call_method(wasi_object, method, "()[Ljava/lang/String;", &[])?
+        .l()?
+        .into_inner();
+    let length = env.get_array_length(array)?;
+
+    (0..length)
+        .map(|nth| {
+            let string = JString::from(env.get_object_array_element(array, nth)?);
+
+            Ok(env.get_string(string)?.into())
+        })
+        .collect()
+}
+
+/// Read the channel stored in the `org.wasmer.Wasi` field named `field`.
+fn channel(
+    env: &JNIEnv,
+    wasi_object: JObject,
+    field: &str,
+    class: &str,
+) -> Result<Option<JavaChannel>, Error> {
+    let channel = env.get_field(wasi_object, field, class)?.l()?;
+
+    if channel.is_null() {
+        Ok(None)
+    } else {
+        Ok(Some(JavaChannel::new(env, channel)?))
+    }
+}
+
+/// Build the WASI import object of `module` based on an `org.wasmer.Wasi` object.
+pub fn generate_import_object(
+    env: &JNIEnv,
+    module: &Module,
+    wasi_object: JObject,
+) -> Result<ImportObject, Error> {
+    let program_name: String = env
+        .get_string(JString::from(
+            env.get_field(wasi_object, "programName", "Ljava/lang/String;")?
+                .l()?,
+        ))?
+        .into();
+
+    let mut state = WasiState::new(&program_name);
+    state
+        .args(strings(env, wasi_object, "getArguments")?)
+        .envs(
+            strings(env, wasi_object, "getEnvironment")?
+                .iter()
+                .map(|variable| {
+                    let mut pair = variable.splitn(2, '=');
+
+                    (
+                        pair.next().unwrap_or("").to_string(),
+                        pair.next().unwrap_or("").to_string(),
+                    )
+                }),
+        );
+
+    let aliases = strings(env, wasi_object, "getPreopenedAliases")?;
+    let paths = strings(env, wasi_object, "getPreopenedPaths")?;
+
+    for (alias, path) in aliases.iter().zip(paths.iter()) {
+        state.map_dir(alias, path).map_err(|e| {
+            runtime_error(format!("Failed to preopen the directory `{}`: {:?}", path, e))
+        })?;
+    }
+
+    if let Some(stdin) = channel(
+        env,
+        wasi_object,
+        "stdin",
+        "Ljava/nio/channels/ReadableByteChannel;",
+    )? {
+        state.stdin(Box::new(stdin));
+    }
+
+    if let Some(stdout) = channel(
+        env,
+        wasi_object,
+        "stdout",
+        "Ljava/nio/channels/WritableByteChannel;",
+    )? {
+        state.stdout(Box::new(stdout));
+    }
+
+    if let Some(stderr) = channel(
+        env,
+        wasi_object,
+        "stderr",
+        "Ljava/nio/channels/WritableByteChannel;",
+    )? {
+        state.stderr(Box::new(stderr));
+    }
+
+    let state = state
+        .build()
+        .map_err(|e| runtime_error(format!("Failed to create the WASI state: {:?}", e)))?;
+    let version = get_wasi_version(module, false).unwrap_or(WasiVersion::Latest);
+
+    Ok(generate_import_object_from_env(
+        module.store(),
+        WasiEnv::new(state),
+        version,
+    ))
+}
@@ -3,20 +3,32 @@ package org.wasmer;
 import org.wasmer.exports.Function;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.wasmer.types.FunctionType;
+import org.wasmer.types.ValueType;
 
 class InstanceTest {
     private byte[] getBytes() throws IOException,Exception {
-        URL url = getClass().getClassLoader().getResource("tests.wasm");
+        return getBytes("tests.wasm");
+    }
+
+    private byte[] getBytes(String filename) throws IOException,Exception {
+        URL url = getClass().getClassLoader().getResource(filename);
         Path modulePath = Paths.get(url.toURI());
         return Files.readAllBytes(modulePath);
     }
@@ -120,4 +132,212 @@ class InstanceTest {
 
         instance.close();
     }
+
+    @Test
+    void wasi() throws IOException,Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Wasi wasi = new Wasi("wasi")
+            .stdin(Channels.newChannel(new ByteArrayInputStream("Hello, World!".getBytes())))
+            .stdout(Channels.newChannel(output));
+
+        Instance instance = new Instance(getBytes("wasi.wasm"), wasi);
+        instance.exports.getFunction("_start").apply();
+
+        assertEquals("Hello, World!", new String(output.toByteArray()));
+
+        instance.close();
+    }
+
+    @Test
+    void wasiPreopenedDirectory() throws IOException,Exception {
+        Path directory = Files.createTempDirectory("wasmer-jni");
+        Files.write(directory.resolve("input.txt"), "Hello from a file!".getBytes());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Wasi wasi = new Wasi("wasi")
+            .mapDirectory("data", directory.toString())
+            .stdout(Channels.newChannel(output));
+
+        Instance instance = new Instance(getBytes("wasi.wasm"), wasi);
+
+        // The function returns a WASI errno.
+        assertEquals(0, (Integer) instance.exports.getFunction("cat").apply()[0]);
+        assertEquals("Hello from a file!", new String(output.toByteArray()));
+
+        instance.close();
+    }
+
+    @Test
+    void wasiStderr() throws IOException,Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ByteArrayOutputStream error = new ByteArrayOutputStream();
+        Wasi wasi = new Wasi("wasi")
+            .stdout(Channels.newChannel(output))
+            .stderr(Channels.newChannel(error));
+
+        Instance instance = new Instance(getBytes("wasi.wasm"), wasi);
+
+        assertEquals(0, (Integer) instance.exports.getFunction("stderr").apply()[0]);
+        assertEquals("Error!", new String(error.toByteArray()));
+        assertEquals(0, output.size());
+
+        instance.close();
+    }
+
+    @Test
+    void describe() throws IOException,Exception {
+        Instance instance = new Instance(getBytes());
+        FunctionType f64 = (FunctionType) instance.exports.getDescriptor("f64_f64").getType();
+
+        assertEquals(Arrays.asList(ValueType.F64), f64.getParams());
+        assertEquals(Arrays.asList(ValueType.F64), f64.getResults());
+        assertTrue(instance.getDescriptor().getImports().isEmpty());
+        assertNull(instance.exports.getDescriptor("unknown"));
+
+        instance.close();
+    }
+
+    @Test
+    void traps() throws IOException,Exception {
+        Instance instance = new Instance(getBytes("trap.wasm"));
+
+        WasmTrap unreachable = Assertions.assertThrows(WasmTrap.class, () -> {
+            instance.exports.getFunction("unreachable").apply();
+        });
+        assertEquals(TrapCode.UNREACHABLE, unreachable.getCode());
+        assertEquals(0, unreachable.getStackTrace().length);
+
+        WasmTrap divideByZero = Assertions.assertThrows(WasmTrap.class, () -> {
+            instance.exports.getFunction("divide_by_zero").apply(0);
+        });
+        assertEquals(TrapCode.ILLEGAL_ARITHMETIC, divideByZero.getCode());
+
+        WasmTrap outOfBounds = Assertions.assertThrows(WasmTrap.class, () -> {
+            instance.exports.getFunction("out_of_bounds").apply();
+        });
+        assertEquals(TrapCode.MEMORY_OUT_OF_BOUNDS, outOfBounds.getCode());
+
+        WasmTrap stackOverflow = Assertions.assertThrows(WasmTrap.class, () -> {
+            instance.exports.getFunction("stack_overflow").apply();
+        });
+        assertEquals(TrapCode.STACK_OVERFLOW, stackOverflow.getCode());
+
+        // The instance is still usable after a trap.
+        assertEquals(1, (Integer) instance.exports.getFunction("divide_by_zero").apply(1)[0]);
+
+        instance.close();
+    }
+
+    @Test
+    void v128() throws IOException,Exception {
+        CompilerConfig config = new CompilerConfig().features(new Features().simd(true));
+        Instance instance = new Instance(getBytes("v128.wasm"), null, config);
+        V128 vector = V128.fromInts(1, -2, 3, -4);
+
+        Object[] results = instance.exports.getFunction("v128_v128").apply(vector);
+
+        assertEquals(vector, results[0]);
+        assertEquals(-4, ((V128) results[0]).getInt(3));
+        assertEquals(vector, V128.fromBytes(vector.toBytes()));
+
+        V128 sum = (V128) instance.exports.getFunction("i32x4_add").apply(vector, V128.fromInts(10, 20, 30, 40))[0];
+        assertEquals(V128.fromInts(11, 18, 33, 36), sum);
+        assertEquals(0x000000120000000bL, sum.getLow());
+        assertEquals(0x0000002400000021L, sum.getHigh());
+
+        instance.close();
+    }
+
+    @Test
+    void bulkMemory() throws IOException,Exception {
+        CompilerConfig config = new CompilerConfig().features(new Features().bulkMemory(true));
+        Instance instance = new Instance(getBytes("bulk.wasm"), null, config);
+        ByteBuffer memory = instance.exports.getMemory("memory").buffer();
+
+        instance.exports.getFunction("fill").apply(0, 7, 4);
+        instance.exports.getFunction("copy").apply(16, 0, 4);
+
+        for (int offset = 0; offset < 24; ++offset) {
+            byte expected = (offset < 4 || (offset >= 16 && offset < 20)) ? (byte) 7 : (byte) 0;
+            assertEquals(expected, memory.get(offset));
+        }
+
+        instance.close();
+    }
+
+    @Test
+    void v128WithoutSimd() throws IOException,Exception {
+        Exception exception = Assertions.assertThrows(RuntimeException.class, () -> {
+            new Instance(getBytes("v128.wasm"));
+        });
+
+        assertTrue(exception.getMessage().startsWith("Failed to compile the module"));
+    }
+
+    @Test
+    void profile() throws IOException,Exception {
+        Module module = new Module(getBytes(), new CompilerConfig().profiling(true));
+        Instance instance = module.instantiate();
+        Function sum = instance.exports.getFunction("sum");
+
+        assertEquals(3, sum.apply(1, 2)[0]);
+        assertEquals(7, sum.apply(3, 4)[0]);
+
+        Profile profile = instance.profile();
+        Profile.FunctionProfile sumProfile = profile.getFunction("sum");
+
+        assertEquals(2L, sumProfile.calls);
+        assertTrue(sumProfile.inclusiveNanos >= sumProfile.exclusiveNanos);
+        assertTrue(profile.toCollapsedStacks().startsWith("sum "));
+
+        instance.resetProfile();
+        assertNull(instance.profile().getFunction("sum"));
+
+        instance.close();
+        module.close();
+    }
+
+    @Test
+    void profileBranchToFunctionLabel() throws IOException,Exception {
+        Module module = new Module(getBytes("profile.wasm"), new CompilerConfig().profiling(true));
+        Instance instance = module.instantiate();
+
+        assertEquals(2, (Integer) instance.exports.getFunction("caller").apply(1)[0]);
+
+        Profile profile = instance.profile();
+        assertEquals(1L, profile.getFunction("caller").calls);
+        assertEquals(2L, profile.getFunction("leave").calls);
+
+        // `leave` exits with a branch, and its frames are closed anyway.
+        String stacks = profile.toCollapsedStacks();
+        assertTrue(stacks.contains("caller;leave "));
+        assertFalse(stacks.contains("leave;leave"));
+
+        instance.close();
+        module.close();
+    }
+
+    @Test
+    void profileDeserializedModule() throws IOException,Exception {
+        Module module = new Module(getBytes("profile.wasm"), new CompilerConfig().profiling(true));
+        Module deserializedModule = Module.deserialize(module.serialize());
+        module.close();
+
+        Instance instance = deserializedModule.instantiate();
+        instance.exports.getFunction("caller").apply(1);
+
+        assertEquals(2L, instance.profile().getFunction("leave").calls);
+
+        instance.close();
+        deserializedModule.close();
+    }
+
+    @Test
+    void profileWithoutProfiling() throws IOException,Exception {
+        Instance instance = new Instance(getBytes());
+
+        Assertions.assertThrows(RuntimeException.class, () -> instance.profile());
+
+        instance.close();
+    }
 }
@@ -3,6 +3,7 @@ package org.wasmer;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
 import java.io.IOException;
@@ -153,4 +154,164 @@ class MemoryTest {
 
         instance.close();
     }
+
+    @Test
+    void atomicAccessors() throws IOException,Exception {
+        Instance instance = new Instance(getBytes("tests.wasm"));
+        Memory memory = instance.exports.getMemory("memory");
+
+        memory.atomicSetInt(0, 41);
+        assertEquals(41, memory.atomicGetAndAddInt(0, 1));
+        assertEquals(42, memory.atomicGetInt(0));
+        assertTrue(memory.atomicCompareAndSetInt(0, 42, 7));
+        assertFalse(memory.atomicCompareAndSetInt(0, 42, 8));
+        assertEquals(7, memory.atomicGetInt(0));
+
+        memory.atomicSetLong(8, 1L << 40);
+        assertEquals(1L << 40, memory.atomicGetAndAddLong(8, 1L));
+        assertTrue(memory.atomicCompareAndSetLong(8, (1L << 40) + 1, 3L));
+        assertEquals(3L, memory.atomicGetLong(8));
+
+        instance.close();
+    }
+
+    @Test
+    void misalignedAtomicAccess() throws IOException,Exception {
+        Instance instance = new Instance(getBytes("tests.wasm"));
+        Memory memory = instance.exports.getMemory("memory");
+
+        Assertions.assertThrows(RuntimeException.class, () -> memory.atomicGetInt(1));
+
+        instance.close();
+    }
+
+    @Test
+    void sharedMemoryAcrossThreads() throws IOException,Exception {
+        // Shared memories belong to the threads proposal.
+        Assertions.assertThrows(RuntimeException.class, () -> new Module(getBytes("shared.wasm")));
+
+        Module module = new Module(getBytes("shared.wasm"), new CompilerConfig().features(new Features().threads(true)));
+        Memory memory = Memory.shared(1, 1);
+        Imports imports = new Imports().memory("env", "memory", memory);
+
+        Thread[] threads = new Thread[4];
+        Throwable[] failures = new Throwable[threads.length];
+
+        for (int i = 0; i < threads.length; ++i) {
+            int nth = i;
+
+            threads[i] = new Thread(() -> {
+                try {
+                    Instance instance = module.instantiate(imports);
+
+                    // Each thread writes its own integers.
+                    for (int j = 0; j < 1000; ++j) {
+                        instance.exports.getFunction("store").apply((j * threads.length + nth) * 4, j);
+                    }
+
+                    instance.close();
+                } catch (Throwable failure) {
+                    failures[nth] = failure;
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // An exception thrown by a thread would be lost otherwise.
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                throw new AssertionError("A thread has failed", failure);
+            }
+        }
+
+        for (int j = 0; j < 1000; ++j) {
+            for (int nth = 0; nth < threads.length; ++nth) {
+                assertEquals(j, memory.atomicGetInt((j * threads.length + nth) * 4));
+            }
+        }
+
+        module.close();
+    }
+
+    @Test
+    void atomicInstructionsAreNotSupported() throws IOException,Exception {
+        Features features = new Features().threads(true);
+
+        assertFalse(Module.validate(getBytes("atomics.wasm"), features));
+        Assertions.assertThrows(RuntimeException.class, () -> new Module(getBytes("atomics.wasm"), new CompilerConfig().features(features)));
+    }
+
+    @Test
+    void copyTo() throws IOException,Exception {
+        Instance source = new Instance(getBytes("tests.wasm"));
+        Instance destination = new Instance(getBytes("tests.wasm"));
+        Memory sourceMemory = source.exports.getMemory("memory");
+        Memory destinationMemory = destination.exports.getMemory("memory");
+
+        ByteBuffer sourceBuffer = sourceMemory.buffer();
+        sourceBuffer.position(100);
+        sourceBuffer.put(new byte[]{1, 2, 3, 4, 5});
+
+        sourceMemory.copyTo(destinationMemory, 100, 200, 5);
+
+        byte[] readData = new byte[5];
+        ByteBuffer destinationBuffer = destinationMemory.buffer();
+        destinationBuffer.position(200);
+        destinationBuffer.get(readData);
+
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, readData);
+
+        source.close();
+        destination.close();
+    }
+
+    @Test
+    void copyRangesTo() throws IOException,Exception {
+        Instance source = new Instance(getBytes("tests.wasm"));
+        Instance destination = new Instance(getBytes("tests.wasm"));
+        Memory sourceMemory = source.exports.getMemory("memory");
+        Memory destinationMemory = destination.exports.getMemory("memory");
+
+        ByteBuffer sourceBuffer = sourceMemory.buffer();
+        sourceBuffer.position(0);
+        sourceBuffer.put(new byte[]{1, 2, 3, 4, 5, 6});
+
+        sourceMemory.copyTo(destinationMemory, new int[]{0, 4}, new int[]{10, 20}, new int[]{2, 2});
+
+        byte[] readData = new byte[2];
+        ByteBuffer destinationBuffer = destinationMemory.buffer();
+
+        destinationBuffer.position(10);
+        destinationBuffer.get(readData);
+        assertArrayEquals(new byte[]{1, 2}, readData);
+
+        destinationBuffer.position(20);
+        destinationBuffer.get(readData);
+        assertArrayEquals(new byte[]{5, 6}, readData);
+
+        source.close();
+        destination.close();
+    }
+
+    @Test
+    void copyOutOfBounds() throws IOException,Exception {
+        Instance source = new Instance(getBytes("tests.wasm"));
+        Instance destination = new Instance(getBytes("tests.wasm"));
+        Memory sourceMemory = source.exports.getMemory("memory");
+        Memory destinationMemory = destination.exports.getMemory("memory");
+        int size = sourceMemory.buffer().limit();
+
+        Assertions.assertThrows(RuntimeException.class, () -> sourceMemory.copyTo(destinationMemory, size - 2, 0, 4));
+        Assertions.assertThrows(RuntimeException.class, () -> sourceMemory.copyTo(destinationMemory, 0, -1, 4));
+        Assertions.assertThrows(RuntimeException.class, () -> {
+            sourceMemory.copyTo(destinationMemory, new int[]{0, size}, new int[]{0, 0}, new int[]{1, 1});
+        });
+
+        source.close();
+        destination.close();
+    }
 }
@@ -3,14 +3,27 @@ package org.wasmer;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.lang.RuntimeException;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.wasmer.types.ExternKind;
+import org.wasmer.types.FunctionType;
+import org.wasmer.types.ImportDescriptor;
+import org.wasmer.types.MemoryType;
+import org.wasmer.types.ModuleDescriptor;
+import org.wasmer.types.ValueType;
 
 class ModuleTest {
     private byte[] getBytes(String filename) throws IOException,Exception {
@@ -28,6 +41,27 @@ class ModuleTest {
         assertFalse(Module.validate(getBytes("invalid.wasm")));
     }
 
+    @Test
+    void validateWithFeatures() throws IOException,Exception {
+        byte[] bytes = getBytes("v128.wasm");
+
+        assertFalse(Module.validate(bytes));
+        assertFalse(Module.validate(bytes, new Features()));
+        assertTrue(Module.validate(bytes, new Features().simd(true)));
+    }
+
+    @Test
+    void validateMatchesCompilation() throws IOException,Exception {
+        byte[] bytes = getBytes("bulk.wasm");
+
+        assertFalse(Module.validate(bytes));
+        Assertions.assertThrows(RuntimeException.class, () -> new Module(bytes));
+
+        Features features = new Features().bulkMemory(true);
+        assertTrue(Module.validate(bytes, features));
+        new Module(bytes, new CompilerConfig().features(features)).close();
+    }
+
     @Test
     void compile() throws IOException,Exception {
         assertTrue(new Module(getBytes("tests.wasm")) instanceof Module);
@@ -43,6 +77,42 @@ class ModuleTest {
         assertTrue(exception.getMessage().startsWith(expected));
     }
 
+    @Test
+    void compileStreamingFromChannel() throws IOException,Exception {
+        Path modulePath = Paths.get(getClass().getClassLoader().getResource("tests.wasm").toURI());
+
+        try (FileChannel channel = FileChannel.open(modulePath, StandardOpenOption.READ)) {
+            Module module = Module.compileStreaming(channel);
+            Instance instance = module.instantiate();
+
+            assertEquals(3, (Integer) instance.exports.getFunction("sum").apply(1, 2)[0]);
+
+            instance.close();
+            module.close();
+        }
+    }
+
+    @Test
+    void compileStreamingFromInputStream() throws IOException,Exception {
+        Module module = Module.compileStreaming(new ByteArrayInputStream(getBytes("tests.wasm")));
+        Instance instance = module.instantiate();
+
+        assertEquals(3, (Integer) instance.exports.getFunction("sum").apply(1, 2)[0]);
+
+        instance.close();
+        module.close();
+    }
+
+    @Test
+    void failedToCompileStreaming() throws IOException,Exception {
+        Exception exception = Assertions.assertThrows(RuntimeException.class, () -> {
+            Module module = Module.compileStreaming(new ByteArrayInputStream(getBytes("invalid.wasm")));
+        });
+
+        String expected = "Failed to compile the module: Validation error: invalid leading byte in type definition";
+        assertTrue(exception.getMessage().startsWith(expected));
+    }
+
     @Test
     void instantiate() throws IOException,Exception {
         Module module = new Module(getBytes("tests.wasm"));
@@ -54,6 +124,150 @@ class ModuleTest {
         module.close();
     }
 
+    @Test
+    void instantiateWithMemoryLimit() throws IOException,Exception {
+        Module module = new Module(getBytes("tests.wasm"));
+        Instance instance = module.instantiate(new ResourceLimits().maximumMemoryPages(18));
+        Memory memory = instance.exports.getMemory("memory");
+
+        assertEquals(17, memory.grow(1));
+        Assertions.assertThrows(RuntimeException.class, () -> memory.grow(1));
+        assertEquals(18 * 65536, memory.buffer().limit());
+
+        instance.close();
+        module.close();
+    }
+
+    @Test
+    void instantiateWithMemoryLimitGrownByTheGuest() throws IOException,Exception {
+        Module module = new Module(getBytes("trap.wasm"));
+        Instance instance = module.instantiate(new ResourceLimits().maximumMemoryPages(2));
+
+        assertEquals(1, (Integer) instance.exports.getFunction("grow").apply(1)[0]);
+        // `memory.grow` fails as for any memory at its maximum size.
+        assertEquals(-1, (Integer) instance.exports.getFunction("grow").apply(1)[0]);
+
+        instance.close();
+        module.close();
+    }
+
+    @Test
+    void instantiateBeyondMemoryLimit() throws IOException,Exception {
+        Module module = new Module(getBytes("tests.wasm"));
+
+        Assertions.assertThrows(RuntimeException.class, () -> {
+            module.instantiate(new ResourceLimits().maximumMemoryPages(10));
+        });
+
+        module.close();
+    }
+
+    @Test
+    void instantiateWithPreallocatedMemory() throws IOException,Exception {
+        Module module = new Module(getBytes("tests.wasm"));
+        Instance instance = module.instantiate(new ResourceLimits().preallocateMemoryPages(32));
+
+        assertEquals(32 * 65536, instance.exports.getMemory("memory").buffer().limit());
+
+        instance.close();
+        module.close();
+    }
+
+    @Test
+    void instantiateWithMemoryGrowthCallback() throws IOException,Exception {
+        Module module = new Module(getBytes("tests.wasm"));
+        ResourceLimits limits = new ResourceLimits()
+            .onMemoryGrowth((currentPages, deltaPages) -> currentPages + deltaPages <= 18);
+        Instance instance = module.instantiate(limits);
+        Memory memory = instance.exports.getMemory("memory");
+
+        assertEquals(17, memory.grow(1));
+        Assertions.assertThrows(RuntimeException.class, () -> memory.grow(1));
+
+        instance.close();
+        module.close();
+    }
+
+    @Test
+    void instantiateWithMemoryGrowthCallbackGrownByTheGuest() throws IOException,Exception {
+        Module module = new Module(getBytes("trap.wasm"));
+        ResourceLimits limits = new ResourceLimits()
+            .onMemoryGrowth((currentPages, deltaPages) -> currentPages + deltaPages <= 2);
+        Instance instance = module.instantiate(limits);
+
+        assertEquals(1, (Integer) instance.exports.getFunction("grow").apply(1)[0]);
+        // The denied growth fails as for a memory at its maximum size.
+        assertEquals(-1, (Integer) instance.exports.getFunction("grow").apply(1)[0]);
+
+        instance.close();
+        module.close();
+    }
+
+    @Test
+    void describe() throws IOException,Exception {
+        Module module = new Module(getBytes("shared.wasm"), new CompilerConfig().features(new Features().threads(true)));
+        ModuleDescriptor descriptor = module.getDescriptor();
+
+        assertEquals(1, descriptor.getImports().size());
+
+        ImportDescriptor memoryImport = descriptor.getImports().get(0);
+        assertEquals("env", memoryImport.getNamespace());
+        assertEquals("memory", memoryImport.getName());
+        assertEquals(ExternKind.MEMORY, memoryImport.getType().getKind());
+
+        MemoryType memoryType = (MemoryType) memoryImport.getType();
+        assertEquals(1, memoryType.getMinimumPages());
+        assertEquals(1, memoryType.getMaximumPages());
+        assertTrue(memoryType.isShared());
+
+        FunctionType store = (FunctionType) descriptor.getExport("store").getType();
+        assertEquals(Arrays.asList(ValueType.I32, ValueType.I32), store.getParams());
+        assertTrue(store.getResults().isEmpty());
+
+        assertSame(descriptor, module.getDescriptor());
+
+        module.close();
+    }
+
+    @Test
+    void describeImportsInOrder() throws IOException,Exception {
+        // The profiler imports functions too, which are hidden.
+        Module module = new Module(getBytes("imports.wasm"), new CompilerConfig().profiling(true));
+        List<ImportDescriptor> imports = module.getDescriptor().getImports();
+
+        assertEquals(4, imports.size());
+        assertEquals("f", imports.get(0).getName());
+        assertEquals(ExternKind.FUNCTION, imports.get(0).getType().getKind());
+        assertEquals("memory", imports.get(1).getName());
+        assertEquals(ExternKind.MEMORY, imports.get(1).getType().getKind());
+        assertEquals("g", imports.get(2).getName());
+        assertEquals(ExternKind.FUNCTION, imports.get(2).getType().getKind());
+        assertEquals("global", imports.get(3).getName());
+        assertEquals(ExternKind.GLOBAL, imports.get(3).getType().getKind());
+
+        module.close();
+    }
+
+    @Test
+    void describeSharedWithInstances() throws IOException,Exception {
+        Module module = new Module(getBytes("tests.wasm"));
+        Instance instance = module.instantiate();
+
+        assertSame(module.getDescriptor(), instance.getDescriptor());
+
+        FunctionType sum = (FunctionType) instance.exports.getDescriptor("sum").getType();
+        assertEquals(Arrays.asList(ValueType.I32, ValueType.I32), sum.getParams());
+        assertEquals(Arrays.asList(ValueType.I32), sum.getResults());
+        assertTrue(sum.accepts(1, 2));
+        assertFalse(sum.accepts(1L, 2));
+        assertFalse(sum.accepts(1));
+
+        assertEquals(ExternKind.MEMORY, instance.exports.getDescriptor("memory").getType().getKind());
+
+        instance.close();
+        module.close();
+    }
+
     @Test
     void serialize() throws IOException,Exception {
         Module module = new Module(getBytes("tests.wasm"));
@@ -71,4 +285,43 @@ class ModuleTest {
         Module deserializedModule = Module.deserialize(serialized);
         assertEquals(3, (Integer) deserializedModule.instantiate().exports.getFunction("sum").apply(1, 2)[0]);
     }
+
+    @Test
+    void deserializeFromPath() throws IOException,Exception {
+        Module module = new Module(getBytes("tests.wasm"));
+        Path serializedPath = Files.createTempFile("wasmer", ".module");
+
+        try {
+            Files.write(serializedPath, module.serialize());
+            module.close();
+
+            Module deserializedModule = Module.deserialize(serializedPath);
+            Instance instance = deserializedModule.instantiate();
+
+            assertEquals(3, (Integer) instance.exports.getFunction("sum").apply(1, 2)[0]);
+
+            instance.close();
+            deserializedModule.close();
+        } finally {
+            Files.delete(serializedPath);
+        }
+    }
+
+    @Test
+    void deserializeFromDirectBuffer() throws IOException,Exception {
+        Module module = new Module(getBytes("tests.wasm"));
+        byte[] serialized = module.serialize();
+        module.close();
+
+        // The buffer is read from its position.
+        ByteBuffer buffer = ByteBuffer.allocateDirect(serialized.length + 3);
+        buffer.position(3);
+        buffer.put(serialized);
+        buffer.position(3);
+
+        Module deserializedModule = Module.deserialize(buffer);
+        assertEquals(3, (Integer) deserializedModule.instantiate().exports.getFunction("sum").apply(1, 2)[0]);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Module.deserialize(ByteBuffer.wrap(serialized)));
+    }
 }
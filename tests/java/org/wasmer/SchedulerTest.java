@@ -0,0 +1,233 @@
+package org.wasmer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+class SchedulerTest {
+    private byte[] getBytes(String filename) throws IOException,Exception {
+        Path modulePath = Paths.get(getClass().getClassLoader().getResource(filename).toURI());
+        return Files.readAllBytes(modulePath);
+    }
+
+    @Test
+    void submit() throws IOException,Exception {
+        Scheduler scheduler = new Scheduler(2, Long.MAX_VALUE);
+        Module module = new Module(getBytes("tests.wasm"));
+        scheduler.register("a", module);
+        scheduler.register("b", module);
+
+        List<CompletableFuture<Object[]>> results = new ArrayList<CompletableFuture<Object[]>>();
+
+        for (int i = 0; i < 100; ++i) {
+            int x = i;
+            results.add(scheduler.submit(i % 2 == 0 ? "a" : "b", instance -> instance.exports.getFunction("sum").apply(x, 1)));
+        }
+
+        for (int i = 0; i < 100; ++i) {
+            assertEquals(i + 1, (Integer) results.get(i).get(10, TimeUnit.SECONDS)[0]);
+        }
+
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(100L, metrics.getCompletedTasks());
+        assertTrue(metrics.getWarmInstances() >= 2);
+        assertTrue(metrics.getMemoryUsage() > 0L);
+
+        scheduler.close();
+        module.close();
+    }
+
+    @Test
+    void instancesArePinned() throws IOException,Exception {
+        Scheduler scheduler = new Scheduler(4, Long.MAX_VALUE);
+        Module module = new Module(getBytes("tests.wasm"));
+        Map<Instance, Thread> owners = new ConcurrentHashMap<Instance, Thread>();
+        List<CompletableFuture<Boolean>> results = new ArrayList<CompletableFuture<Boolean>>();
+
+        for (int tenant = 0; tenant < 8; ++tenant) {
+            scheduler.register("tenant-" + tenant, module);
+        }
+
+        for (int i = 0; i < 400; ++i) {
+            results.add(scheduler.submit("tenant-" + (i % 8), instance -> {
+                Thread owner = owners.putIfAbsent(instance, Thread.currentThread());
+
+                return owner == null || owner == Thread.currentThread();
+            }));
+        }
+
+        for (CompletableFuture<Boolean> result : results) {
+            assertTrue(result.get(10, TimeUnit.SECONDS));
+        }
+
+        scheduler.close();
+        module.close();
+    }
+
+    @Test
+    void workStealing() throws IOException,Exception {
+        Scheduler scheduler = new Scheduler(2, Long.MAX_VALUE);
+        Module module = new Module(getBytes("tests.wasm"));
+        scheduler.register("a", module);
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Block the home worker of the tenant,
+        CompletableFuture<Thread> blocked = scheduler.submit("a", instance -> {
+            started.countDown();
+            release.await();
+
+            return Thread.currentThread();
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        // so that the other worker steals the next task.
+        CompletableFuture<Thread> stolen = scheduler.submit("a", instance -> Thread.currentThread());
+
+        Thread thief = stolen.get(10, TimeUnit.SECONDS);
+        release.countDown();
+        assertNotSame(blocked.get(10, TimeUnit.SECONDS), thief);
+        assertEquals(1L, scheduler.metrics().getStolenTasks());
+
+        scheduler.close();
+        module.close();
+    }
+
+    @Test
+    void evictionUnderMemoryBudget() throws IOException,Exception {
+        // The budget fits one instance of `tests.wasm` (17 pages).
+        Scheduler scheduler = new Scheduler(1, 17L * 65536L);
+        Module module = new Module(getBytes("tests.wasm"));
+        scheduler.register("a", module);
+        scheduler.register("b", module);
+
+        scheduler.prewarm("a").get(10, TimeUnit.SECONDS);
+        scheduler.prewarm("b").get(10, TimeUnit.SECONDS);
+
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(1L, metrics.getEvictions());
+        assertEquals(1, metrics.getWarmInstances());
+        assertTrue(metrics.getMemoryUsage() <= metrics.getMemoryBudget());
+
+        // The evicted tenant is instantiated again.
+        assertEquals(3, (Integer) scheduler.submit("a", instance -> instance.exports.getFunction("sum").apply(1, 2)).get(10, TimeUnit.SECONDS)[0]);
+        assertEquals(3L, scheduler.metrics().getInstantiations());
+
+        scheduler.close();
+        module.close();
+    }
+
+    @Test
+    void newInstanceIsChargedBeforeItsFirstTask() throws IOException,Exception {
+        // The budget fits one instance of `tests.wasm` (17 pages).
+        Scheduler scheduler = new Scheduler(1, 17L * 65536L);
+        Module module = new Module(getBytes("tests.wasm"));
+        scheduler.register("a", module);
+        scheduler.register("b", module);
+
+        scheduler.prewarm("a").get(10, TimeUnit.SECONDS);
+
+        // The instance of `a` is evicted before the first task of `b` runs.
+        SchedulerMetrics metrics = scheduler.submit("b", instance -> scheduler.metrics()).get(10, TimeUnit.SECONDS);
+        assertEquals(17L * 65536L, metrics.getMemoryUsage());
+        assertEquals(1L, metrics.getEvictions());
+
+        scheduler.close();
+        module.close();
+    }
+
+    @Test
+    void errorsDoNotStopTheWorker() throws IOException,Exception {
+        Scheduler scheduler = new Scheduler(1, Long.MAX_VALUE);
+        Module module = new Module(getBytes("tests.wasm"));
+        scheduler.register("a", module);
+
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> {
+            scheduler.submit("a", instance -> { throw new AssertionError("failure"); }).get(10, TimeUnit.SECONDS);
+        });
+        assertTrue(exception.getCause() instanceof AssertionError);
+
+        // The worker still runs tasks, on a new instance.
+        assertEquals(3, (Integer) scheduler.submit("a", instance -> instance.exports.getFunction("sum").apply(1, 2)).get(10, TimeUnit.SECONDS)[0]);
+
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(1L, metrics.getEvictions());
+        assertEquals(2L, metrics.getInstantiations());
+        assertEquals(1, metrics.getWarmInstances());
+
+        scheduler.close();
+        module.close();
+    }
+
+    @Test
+    void memoryUsageIncludesMemoriesNotExported() throws IOException,Exception {
+        Scheduler scheduler = new Scheduler(1, Long.MAX_VALUE);
+        // `trap.wasm` defines a memory of 1 page, and does not export it.
+        Module module = new Module(getBytes("trap.wasm"));
+        scheduler.register("a", module);
+
+        scheduler.prewarm("a").get(10, TimeUnit.SECONDS);
+        assertEquals(65536L, scheduler.metrics().getMemoryUsage());
+
+        scheduler.close();
+        module.close();
+    }
+
+    @Test
+    void instanceLargerThanMemoryBudget() throws IOException,Exception {
+        // The budget does not fit one instance of `tests.wasm` (17 pages).
+        Scheduler scheduler = new Scheduler(1, 16L * 65536L);
+        Module module = new Module(getBytes("tests.wasm"));
+        scheduler.register("a", module);
+
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> {
+            scheduler.submit("a", instance -> instance.exports.getFunction("sum").apply(1, 2)).get(10, TimeUnit.SECONDS);
+        });
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+
+        SchedulerMetrics metrics = scheduler.metrics();
+        assertEquals(0, metrics.getWarmInstances());
+        assertEquals(0L, metrics.getMemoryUsage());
+        assertEquals(0L, metrics.getEvictions());
+
+        scheduler.close();
+        module.close();
+    }
+
+    @Test
+    void failures() throws IOException,Exception {
+        Scheduler scheduler = new Scheduler(1, Long.MAX_VALUE);
+        Module module = new Module(getBytes("tests.wasm"));
+        scheduler.register("a", module);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.register("a", module));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> scheduler.submit("unknown", instance -> null));
+
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> {
+            scheduler.submit("a", instance -> { throw new IllegalStateException("failure"); }).get(10, TimeUnit.SECONDS);
+        });
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+
+        scheduler.close();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> scheduler.submit("a", instance -> null));
+
+        module.close();
+    }
+}
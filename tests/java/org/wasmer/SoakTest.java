@@ -0,0 +1,289 @@
+package org.wasmer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Multithreaded soak tests, hammering the JNI boundary to reveal
+ * leaks and races. They are excluded from `test`, and run with
+ * `make test-soak` (or `./gradlew soakTest`).
+ *
+ * The following system properties configure the run:
+ *
+ *   * `wasmer.soak.duration`, the duration in seconds (default 60),
+ *   * `wasmer.soak.threads`, the number of threads (default the number of processors),
+ *   * `wasmer.soak.maxRssGrowth`, the maximum growth of the native RSS in MiB (default 64),
+ *   * `wasmer.soak.maxHeapGrowth`, the maximum growth of the JVM heap in MiB (default 64),
+ *   * `wasmer.soak.minThroughputRatio`, the minimum ratio between the
+ *     throughput at the end and at the beginning of the run (default 0.5),
+ *   * `wasmer.soak.throughputWindow`, the number of samples the
+ *     throughput is averaged over, at the end and at the beginning of
+ *     the run (default 10).
+ */
+@Tag("soak")
+class SoakTest {
+    private static final long DURATION = Long.getLong("wasmer.soak.duration", 60L) * 1000L;
+    private static final int THREADS = Integer.getInteger("wasmer.soak.threads", Runtime.getRuntime().availableProcessors());
+    private static final long MAX_RSS_GROWTH = Long.getLong("wasmer.soak.maxRssGrowth", 64L) * 1024L * 1024L;
+    private static final long MAX_HEAP_GROWTH = Long.getLong("wasmer.soak.maxHeapGrowth", 64L) * 1024L * 1024L;
+    private static final double MIN_THROUGHPUT_RATIO = Double.parseDouble(System.getProperty("wasmer.soak.minThroughputRatio", "0.5"));
+    private static final int THROUGHPUT_WINDOW = Integer.getInteger("wasmer.soak.throughputWindow", 10);
+
+    /**
+     * Samples are taken every second. The first 20% of the run is
+     * the warm-up, which is not compared against. The throughput is
+     * averaged over a window of samples, so that a single noisy
+     * second does not fail the run.
+     */
+    private static final long SAMPLE_INTERVAL = 1000L;
+    private static final double WARM_UP_RATIO = 0.2;
+
+    private byte[] getBytes(String filename) throws IOException,Exception {
+        Path modulePath = Paths.get(getClass().getClassLoader().getResource(filename).toURI());
+        return Files.readAllBytes(modulePath);
+    }
+
+    /**
+     * One operation on the WebAssembly API, run in a loop by each thread.
+     */
+    @FunctionalInterface
+    private interface Operation {
+        void run() throws Exception;
+    }
+
+    /**
+     * The operations run during a sample interval, and the state of
+     * the process at its end. The interval is timed before the
+     * garbage is collected, so that the forced collection does not
+     * disturb the throughput.
+     */
+    private static class Sample {
+        final long operations;
+        final long nanos;
+        final long rss;
+        final long heap;
+
+        Sample(long operations, long nanos, long rss, long heap) {
+            this.operations = operations;
+            this.nanos = nanos;
+            this.rss = rss;
+            this.heap = heap;
+        }
+
+        double throughput() {
+            return this.operations * 1e9 / Math.max(1L, this.nanos);
+        }
+    }
+
+    /**
+     * Return the mean throughput, in operations per second, of the
+     * samples from `from` (inclusive) to `to` (exclusive).
+     */
+    private static double throughput(List<Sample> samples, int from, int to) {
+        long operations = 0L;
+        long nanos = 0L;
+
+        for (Sample sample : samples.subList(from, to)) {
+            operations += sample.operations;
+            nanos += sample.nanos;
+        }
+
+        return operations * 1e9 / Math.max(1L, nanos);
+    }
+
+    /**
+     * Return the resident set size of the process in bytes, or -1 if
+     * it is unknown (i.e. not on Linux).
+     */
+    private static long residentSetSize() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"), StandardCharsets.UTF_8)) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) * 1024L;
+                }
+            }
+        } catch (IOException e) {
+            // Not available on this platform.
+        }
+
+        return -1L;
+    }
+
+    private static Sample sample(long operations, long nanos) {
+        // Collect the garbage, so that the finalizers free the native objects.
+        System.gc();
+        System.runFinalization();
+
+        Runtime runtime = Runtime.getRuntime();
+
+        return new Sample(operations, nanos, residentSetSize(), runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Run `operations` from all the threads for the configured
+     * duration, and check the leak and throughput thresholds.
+     */
+    private void soak(String name, Operation... operations) throws Exception {
+        AtomicLong counter = new AtomicLong();
+        Queue<Throwable> errors = new ConcurrentLinkedQueue<Throwable>();
+        long deadline = System.currentTimeMillis() + DURATION;
+        List<Thread> threads = new ArrayList<Thread>();
+
+        for (int i = 0; i < THREADS; ++i) {
+            int offset = i;
+
+            Thread thread = new Thread(() -> {
+                int nth = offset;
+
+                while (System.currentTimeMillis() < deadline && errors.isEmpty()) {
+                    try {
+                        operations[nth++ % operations.length].run();
+                        counter.incrementAndGet();
+                    } catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            }, "soak-" + name + "-" + i);
+
+            threads.add(thread);
+            thread.start();
+        }
+
+        List<Sample> samples = new ArrayList<Sample>();
+        long intervalOperations = counter.get();
+        long intervalStart = System.nanoTime();
+
+        while (System.currentTimeMillis() < deadline && errors.isEmpty()) {
+            Thread.sleep(SAMPLE_INTERVAL);
+
+            long totalOperations = counter.get();
+            long intervalEnd = System.nanoTime();
+            Sample sample = sample(totalOperations - intervalOperations, intervalEnd - intervalStart);
+            samples.add(sample);
+
+            // The next interval starts once the garbage is collected.
+            intervalOperations = counter.get();
+            intervalStart = System.nanoTime();
+
+            System.out.println(String.format(
+                "soak %s: %d ops, %.0f ops/s, rss %d KiB, heap %d KiB",
+                name, totalOperations, sample.throughput(), sample.rss / 1024, sample.heap / 1024
+            ));
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        if (!errors.isEmpty()) {
+            throw new AssertionError("An operation failed during the `" + name + "` soak test", errors.peek());
+        }
+
+        // Compare the end of the run against the end of the warm-up.
+        int warmUp = (int) (samples.size() * WARM_UP_RATIO);
+        int window = Math.min(THROUGHPUT_WINDOW, (samples.size() - warmUp) / 2);
+
+        if (window < 1) {
+            return;
+        }
+
+        Sample baseline = samples.get(warmUp);
+        Sample last = samples.get(samples.size() - 1);
+
+        if (baseline.rss >= 0 && last.rss >= 0) {
+            assertTrue(
+                last.rss - baseline.rss <= MAX_RSS_GROWTH,
+                "The native RSS has grown by " + (last.rss - baseline.rss) / 1024 + " KiB, a leak is likely"
+            );
+        }
+
+        assertTrue(
+            last.heap - baseline.heap <= MAX_HEAP_GROWTH,
+            "The JVM heap has grown by " + (last.heap - baseline.heap) / 1024 + " KiB, a leak is likely"
+        );
+
+        double initialThroughput = throughput(samples, warmUp, warmUp + window);
+        double finalThroughput = throughput(samples, samples.size() - window, samples.size());
+
+        assertTrue(
+            finalThroughput >= initialThroughput * MIN_THROUGHPUT_RATIO,
+            String.format("The throughput has dropped from %.0f ops/s to %.0f ops/s", initialThroughput, finalThroughput)
+        );
+    }
+
+    @Test
+    void instantiateCallGrowClose() throws Exception {
+        byte[] bytes = getBytes("tests.wasm");
+
+        soak(
+            "instance",
+            () -> {
+                Instance instance = new Instance(bytes);
+                assertEquals(3, (Integer) instance.exports.getFunction("sum").apply(1, 2)[0]);
+                instance.exports.getMemory("memory").grow(1);
+                instance.close();
+            },
+            () -> {
+                Module module = new Module(bytes);
+                Instance instance = module.instantiate();
+                assertEquals(42, (Integer) instance.exports.getFunction("arity_0").apply()[0]);
+                instance.close();
+                module.close();
+            }
+        );
+    }
+
+    @Test
+    void serializeDeserialize() throws Exception {
+        byte[] bytes = getBytes("tests.wasm");
+
+        soak(
+            "serialization",
+            () -> {
+                Module module = new Module(bytes);
+                byte[] serialized = module.serialize();
+                module.close();
+
+                Module deserializedModule = Module.deserialize(serialized);
+                Instance instance = deserializedModule.instantiate();
+                assertEquals(3, (Integer) instance.exports.getFunction("sum").apply(1, 2)[0]);
+                instance.close();
+                deserializedModule.close();
+            }
+        );
+    }
+
+    @Test
+    void memoryBuffer() throws Exception {
+        byte[] bytes = getBytes("tests.wasm");
+        ThreadLocal<Instance> instances = ThreadLocal.withInitial(() -> new Instance(bytes));
+
+        soak(
+            "buffer",
+            () -> {
+                // One long-lived instance per thread, to stress `buffer` only.
+                Instance instance = instances.get();
+                ByteBuffer buffer = instance.exports.getMemory("memory").buffer();
+                int pointer = (Integer) instance.exports.getFunction("string").apply()[0];
+                byte[] data = new byte[13];
+                buffer.position(pointer);
+                buffer.get(data);
+                assertEquals("Hello, World!", new String(data));
+            }
+        );
+    }
+}
@@ -0,0 +1,15 @@
+(module
+  (type $increment_type (func (param i32 i32)))
+
+  (import "env" "memory" (memory $memory 1 1 shared))
+
+  ;; Atomically increment the integer at `pointer`, `count` times.
+  (func $increment (type $increment_type) (param $pointer i32) (param $count i32)
+    (block $done
+      (loop $continue
+        (br_if $done (i32.eqz (local.get $count)))
+        (drop (i32.atomic.rmw.add (local.get $pointer) (i32.const 1)))
+        (local.set $count (i32.sub (local.get $count) (i32.const 1)))
+        (br $continue))))
+
+  (export "increment" (func $increment)))
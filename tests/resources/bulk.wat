@@ -0,0 +1,17 @@
+(module
+  (type $fill_type (func (param i32 i32 i32)))
+
+  (memory $memory 1)
+
+  ;; Fill `length` bytes at `destination` with `value`. It requires
+  ;; the bulk memory proposal.
+  (func $fill (type $fill_type) (param $destination i32) (param $value i32) (param $length i32)
+    (memory.fill (local.get $destination) (local.get $value) (local.get $length)))
+
+  ;; Copy `length` bytes from `source` to `destination`.
+  (func $copy (type $fill_type) (param $destination i32) (param $source i32) (param $length i32)
+    (memory.copy (local.get $destination) (local.get $source) (local.get $length)))
+
+  (export "memory" (memory $memory))
+  (export "fill" (func $fill))
+  (export "copy" (func $copy)))
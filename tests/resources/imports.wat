@@ -0,0 +1,7 @@
+(module
+  ;; Imports of several kinds, interleaved, to test that they are
+  ;; described in the order of the import section.
+  (import "env" "f" (func))
+  (import "env" "memory" (memory 1))
+  (import "env" "g" (func))
+  (import "env" "global" (global i32)))
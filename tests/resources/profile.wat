@@ -0,0 +1,16 @@
+(module
+  (type $i32_i32 (func (param i32) (result i32)))
+
+  ;; Leave the function with a branch to its label, rather than with
+  ;; `return` or the `end` of its body.
+  (func $leave (type $i32_i32) (param $x i32) (result i32)
+    (br 0 (local.get $x)))
+
+  ;; Call `leave` twice.
+  (func $caller (type $i32_i32) (param $x i32) (result i32)
+    (i32.add
+      (call $leave (local.get $x))
+      (call $leave (local.get $x))))
+
+  (export "leave" (func $leave))
+  (export "caller" (func $caller)))
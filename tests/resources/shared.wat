@@ -0,0 +1,10 @@
+(module
+  (type $store_type (func (param i32 i32)))
+
+  (import "env" "memory" (memory $memory 1 1 shared))
+
+  ;; Write `value` at `pointer`, without an atomic instruction.
+  (func $store (type $store_type) (param $pointer i32) (param $value i32)
+    (i32.store (local.get $pointer) (local.get $value)))
+
+  (export "store" (func $store)))
@@ -0,0 +1,33 @@
+(module
+  (type $unreachable_type (func))
+  (type $divide_by_zero_type (func (param i32) (result i32)))
+  (type $out_of_bounds_type (func (result i32)))
+
+  (memory $memory 1)
+
+  ;; Trap with `unreachable`.
+  (func $unreachable (type $unreachable_type)
+    unreachable)
+
+  ;; Divide 1 by `x`, which traps if `x` is zero.
+  (func $divide_by_zero (type $divide_by_zero_type) (param $x i32) (result i32)
+    (i32.div_s (i32.const 1) (local.get $x)))
+
+  ;; Load just after the end of the memory.
+  (func $out_of_bounds (type $out_of_bounds_type) (result i32)
+    (i32.load (i32.const 65536)))
+
+  ;; Grow the memory by `pages`, and return the previous number of
+  ;; pages, or -1 if the memory cannot grow.
+  (func $grow (type $divide_by_zero_type) (param $pages i32) (result i32)
+    (memory.grow (local.get $pages)))
+
+  ;; Recurse until the call stack is exhausted.
+  (func $stack_overflow (type $unreachable_type)
+    (call $stack_overflow))
+
+  (export "unreachable" (func $unreachable))
+  (export "divide_by_zero" (func $divide_by_zero))
+  (export "out_of_bounds" (func $out_of_bounds))
+  (export "grow" (func $grow))
+  (export "stack_overflow" (func $stack_overflow)))
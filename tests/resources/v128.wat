@@ -0,0 +1,15 @@
+(module
+  (type $v128_v128_type (func (param v128) (result v128)))
+  (type $v128_v128_v128_type (func (param v128 v128) (result v128)))
+
+  ;; Return the given `v128` value, to test the conversion in both
+  ;; directions. It requires the SIMD proposal.
+  (func $v128_v128 (type $v128_v128_type) (param $x v128) (result v128)
+    local.get $x)
+
+  ;; Add the `i32` lanes of `x` and `y`.
+  (func $i32x4_add (type $v128_v128_v128_type) (param $x v128) (param $y v128) (result v128)
+    (i32x4.add (local.get $x) (local.get $y)))
+
+  (export "v128_v128" (func $v128_v128))
+  (export "i32x4_add" (func $i32x4_add)))
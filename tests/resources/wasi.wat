@@ -0,0 +1,75 @@
+(module
+  (type $fd_io_type (func (param i32 i32 i32 i32) (result i32)))
+  (type $start_type (func))
+  (type $path_open_type (func (param i32 i32 i32 i32 i32 i64 i64 i32 i32) (result i32)))
+  (type $errno_type (func (result i32)))
+
+  (import "wasi_snapshot_preview1" "fd_read" (func $fd_read (type $fd_io_type)))
+  (import "wasi_snapshot_preview1" "fd_write" (func $fd_write (type $fd_io_type)))
+  (import "wasi_snapshot_preview1" "path_open" (func $path_open (type $path_open_type)))
+
+  (memory $memory 1)
+
+  ;; The path of the file read by `cat`.
+  (data (i32.const 128) "input.txt")
+
+  ;; The iovec of the message written by `stderr`, and the message.
+  (data (i32.const 160) "\a8\00\00\00\06\00\00\00Error!")
+
+  ;; Copy stdin to stdout until the end of stdin is reached.
+  ;; The iovec lives at offset 0, the number of read bytes at offset
+  ;; 8, the number of written bytes at offset 12, and the data at 16.
+  (func $start (type $start_type)
+    (loop $continue
+      (i32.store (i32.const 0) (i32.const 16))
+      (i32.store offset=4 (i32.const 0) (i32.const 1024))
+      (if (call $fd_read (i32.const 0) (i32.const 0) (i32.const 1) (i32.const 8))
+        (then (return)))
+      (if (i32.eqz (i32.load (i32.const 8)))
+        (then (return)))
+      (i32.store offset=4 (i32.const 0) (i32.load (i32.const 8)))
+      (if (call $fd_write (i32.const 1) (i32.const 0) (i32.const 1) (i32.const 12))
+        (then (return)))
+      (br $continue)))
+
+  ;; Copy the file `input.txt` to stdout, and return an errno. The
+  ;; file is opened from the first preopened directory holding it:
+  ;; the file descriptors of the preopened directories start at 3.
+  ;; The opened file descriptor lives at offset 20, and the data at
+  ;; 256.
+  (func $cat (type $errno_type) (local $errno i32) (local $directory i32)
+    (local.set $directory (i32.const 3))
+    (loop $next_directory
+      (if (local.tee $errno
+            (call $path_open
+              (local.get $directory) (i32.const 0) (i32.const 128) (i32.const 9)
+              (i32.const 0) (i64.const 2) (i64.const 0) (i32.const 0) (i32.const 20)))
+        (then
+          (br_if $next_directory
+            (i32.lt_u
+              (local.tee $directory (i32.add (local.get $directory) (i32.const 1)))
+              (i32.const 8)))
+          (return (local.get $errno)))))
+    (loop $continue
+      (i32.store (i32.const 0) (i32.const 256))
+      (i32.store offset=4 (i32.const 0) (i32.const 1024))
+      (if (local.tee $errno
+            (call $fd_read (i32.load (i32.const 20)) (i32.const 0) (i32.const 1) (i32.const 8)))
+        (then (return (local.get $errno))))
+      (if (i32.eqz (i32.load (i32.const 8)))
+        (then (return (i32.const 0))))
+      (i32.store offset=4 (i32.const 0) (i32.load (i32.const 8)))
+      (if (local.tee $errno
+            (call $fd_write (i32.const 1) (i32.const 0) (i32.const 1) (i32.const 12)))
+        (then (return (local.get $errno))))
+      (br $continue))
+    (i32.const 0))
+
+  ;; Write `Error!` to stderr, and return an errno.
+  (func $stderr (type $errno_type)
+    (call $fd_write (i32.const 2) (i32.const 160) (i32.const 1) (i32.const 12)))
+
+  (export "memory" (memory $memory))
+  (export "_start" (func $start))
+  (export "cat" (func $cat))
+  (export "stderr" (func $stderr)))